@@ -0,0 +1,18 @@
+package com.springboot.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Read-through caches of entities by id. Sizing, expiry and statistics come from
+ * {@code spring.cache.caffeine.spec}; hit, miss and eviction counts are published
+ * by actuator as the {@code cache.gets} and {@code cache.evictions} metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String STUDENTS = "students";
+    public static final String TEACHERS = "teachers";
+
+}
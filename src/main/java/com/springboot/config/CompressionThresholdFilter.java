@@ -0,0 +1,196 @@
+package com.springboot.config;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Makes {@code server.compression.min-response-size} apply to bodies written without a
+ * Content-Length, which Tomcat otherwise always compresses. The first {@code threshold}
+ * bytes of the body are held back: a body that ends within them is sent with its
+ * Content-Length, so Tomcat leaves it uncompressed, and a longer one is streamed on as
+ * before. Bodies written from an async thread, like the NDJSON stream, are not held back.
+ */
+public class CompressionThresholdFilter implements Filter {
+
+    private final int threshold;
+
+    public CompressionThresholdFilter(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpReq = (HttpServletRequest) request;
+        String acceptEncoding = httpReq.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (threshold <= 0 || acceptEncoding == null || !acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ThresholdResponse thresholdResponse = new ThresholdResponse(httpReq, (HttpServletResponse) response, threshold);
+        chain.doFilter(request, thresholdResponse);
+        if (!httpReq.isAsyncStarted()) {
+            thresholdResponse.finish();
+        }
+    }
+
+    private static final class ThresholdResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private final int threshold;
+        private ByteArrayOutputStream held = new ByteArrayOutputStream();
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        ThresholdResponse(HttpServletRequest request, HttpServletResponse response, int threshold) {
+            super(response);
+            this.request = request;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ThresholdOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (held == null) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (held != null) {
+                held.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (held != null) {
+                held.reset();
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            held = null;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            held = null;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            held = null;
+            super.sendRedirect(location);
+        }
+
+        /**
+         * Sends a body that never grew past the threshold, with its length.
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (held == null) {
+                return;
+            }
+            ByteArrayOutputStream body = held;
+            held = null;
+            if (!isCommitted() && body.size() > 0) {
+                setContentLength(body.size());
+            }
+            body.writeTo(super.getOutputStream());
+        }
+
+        private void release() throws IOException {
+            ByteArrayOutputStream body = held;
+            held = null;
+            body.writeTo(super.getOutputStream());
+        }
+
+        private final class ThresholdOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (held != null && (held.size() + len > threshold || request.isAsyncStarted())) {
+                    release();
+                }
+                if (held != null) {
+                    held.write(b, off, len);
+                } else {
+                    ThresholdResponse.super.getOutputStream().write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (held == null) {
+                    ThresholdResponse.super.getOutputStream().flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (held != null) {
+                    finish();
+                }
+                ThresholdResponse.super.getOutputStream().close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return held != null || getResponseOutputStream().isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                getResponseOutputStream().setWriteListener(writeListener);
+            }
+
+            private ServletOutputStream getResponseOutputStream() {
+                try {
+                    return ThresholdResponse.super.getOutputStream();
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.springboot.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Warns at startup when the Hikari pool does not fit the request thread model: more
+ * connections than platform request threads can ever borrow, or, with virtual threads,
+ * a connection timeout long enough to park every request during a database stall.
+ * Pool usage itself is published by actuator as the {@code hikaricp.connections.*} metrics.
+ */
+@Component
+public class ConnectionPoolCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolCheck.class);
+
+    static final Duration MAX_VIRTUAL_CONNECTION_TIMEOUT = Duration.ofSeconds(10);
+    private static final int DEFAULT_TOMCAT_MAX_THREADS = 200;
+
+    private final DataSource dataSource;
+    private final Environment environment;
+
+    public ConnectionPoolCheck(DataSource dataSource, Environment environment) {
+        this.dataSource = dataSource;
+        this.environment = environment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkPoolSize() {
+        problems().forEach(logger::warn);
+    }
+
+    List<String> problems() {
+        HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+        if (pool == null) {
+            return List.of();
+        }
+        List<String> problems = new ArrayList<>();
+        int poolSize = pool.getMaximumPoolSize();
+        if (Threading.VIRTUAL.isActive(environment)) {
+            if (pool.getConnectionTimeout() > MAX_VIRTUAL_CONNECTION_TIMEOUT.toMillis()) {
+                problems.add("Virtual threads are enabled and spring.datasource.hikari.connection-timeout is "
+                        + pool.getConnectionTimeout() + "ms; during a database stall every request waits that long "
+                        + "for one of the " + poolSize + " connections. Consider at most "
+                        + MAX_VIRTUAL_CONNECTION_TIMEOUT.toMillis() + "ms.");
+            }
+            return problems;
+        }
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            problems.add("spring.threads.virtual.enabled is set but the runtime is Java "
+                    + Runtime.version().feature() + "; requests run on platform threads, which needs Java 21.");
+        }
+        int maxThreads = environment.getProperty("server.tomcat.threads.max", Integer.class, DEFAULT_TOMCAT_MAX_THREADS);
+        if (poolSize > maxThreads) {
+            problems.add("Connection pool allows " + poolSize + " connections but at most " + maxThreads
+                    + " request threads can use them; lower spring.datasource.hikari.maximum-pool-size.");
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,112 @@
+package com.springboot.config;
+
+import com.springboot.model.Student;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Stops Flyway before it migrates a database whose students share an email. The V4
+ * migration adds {@link Student#EMAIL_UNIQUE_CONSTRAINT}, and databases written by the old
+ * check-then-insert create can hold the same email more than once; the constraint would then
+ * fail halfway through V4 with a bare duplicate-key error and leave a failed migration
+ * behind. Nothing is deleted automatically, since which of the students to keep is a
+ * decision for whoever owns the data: change or remove the listed rows and restart.
+ * <p>
+ * Once the constraint exists the check only looks at the table's indexes.
+ */
+@Component
+public class DuplicateStudentEmailCheck implements Callback {
+
+    private static final String STUDENT_TABLE = "student-table";
+    private static final int LISTED_EMAILS = 20;
+
+    // lower(): MySQL compares emails case-insensitively, so the constraint does too
+    private static final String DUPLICATES = "select lower(student_email), count(*) from `student-table` "
+            + "group by lower(student_email) having count(*) > 1 order by lower(student_email)";
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_MIGRATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        try {
+            Connection connection = context.getConnection();
+            String table = findStudentTable(connection);
+            if (table == null || hasEmailConstraint(connection, table)) {
+                return;
+            }
+            failOnDuplicates(connection);
+        } catch (SQLException ex) {
+            throw new FlywayException("Could not check student emails for duplicates", ex);
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "Duplicate student email check";
+    }
+
+    private static String findStudentTable(Connection connection) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), connection.getSchema(),
+                null, new String[]{"TABLE"})) {
+            while (tables.next()) {
+                String name = tables.getString("TABLE_NAME");
+                if (STUDENT_TABLE.equalsIgnoreCase(name)) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasEmailConstraint(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, true, true)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null && name.toLowerCase(Locale.ROOT).contains(Student.EMAIL_UNIQUE_CONSTRAINT)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void failOnDuplicates(Connection connection) throws SQLException {
+        List<String> duplicates = new ArrayList<>();
+        int total = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(DUPLICATES)) {
+            while (rows.next()) {
+                if (total++ < LISTED_EMAILS) {
+                    duplicates.add(rows.getString(1) + " (" + rows.getLong(2) + " students)");
+                }
+            }
+        }
+        if (total > 0) {
+            throw new FlywayException(total + " student emails are used by more than one student, so the unique "
+                    + "constraint of the V4 migration cannot be added. Change or remove the extra students, then "
+                    + "restart: " + String.join(", ", duplicates)
+                    + (total > LISTED_EMAILS ? " and " + (total - LISTED_EMAILS) + " more" : ""));
+        }
+    }
+}
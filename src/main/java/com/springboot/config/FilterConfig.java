@@ -1,20 +1,56 @@
 package com.springboot.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.ratelimit.BucketStore;
+import com.springboot.ratelimit.JdbcBucketStore;
+import com.springboot.ratelimit.LocalBucketStore;
+import com.springboot.ratelimit.RateLimitProperties;
 import com.springboot.ratelimit.RateLimitingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.server.Compression;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class FilterConfig {
 
     @Bean
-    public FilterRegistrationBean<RateLimitingFilter> rateLimitingFilter() {
-        FilterRegistrationBean<RateLimitingFilter> registrationBean = new FilterRegistrationBean<>();
-        registrationBean.setFilter(new RateLimitingFilter());
+    public BucketStore rateLimitBucketStore(RateLimitProperties rateLimitProperties, ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        LocalBucketStore localStore = new LocalBucketStore(rateLimitProperties);
+        if (rateLimitProperties.getStore() == RateLimitProperties.Store.JDBC) {
+            return new JdbcBucketStore(jdbcTemplate.getObject(), rateLimitProperties, localStore);
+        }
+        return localStore;
+    }
+
+    @Bean
+    public RateLimitingFilter rateLimitingFilter(RateLimitProperties rateLimitProperties, BucketStore rateLimitBucketStore,
+                                                 ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new RateLimitingFilter(rateLimitProperties, rateLimitBucketStore, objectMapper, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitingFilter> rateLimitingFilterRegistration(RateLimitingFilter rateLimitingFilter) {
+        FilterRegistrationBean<RateLimitingFilter> registrationBean = new FilterRegistrationBean<>(rateLimitingFilter);
         registrationBean.addUrlPatterns("/api/student/*");
         return registrationBean;
     }
 
+    @Bean
+    public FilterRegistrationBean<CompressionThresholdFilter> compressionThresholdFilterRegistration(ServerProperties serverProperties) {
+        Compression compression = serverProperties.getCompression();
+        FilterRegistrationBean<CompressionThresholdFilter> registrationBean = new FilterRegistrationBean<>(
+                new CompressionThresholdFilter((int) compression.getMinResponseSize().toBytes()));
+        registrationBean.setEnabled(compression.getEnabled());
+        registrationBean.addUrlPatterns("/*");
+        return registrationBean;
+    }
+
 }
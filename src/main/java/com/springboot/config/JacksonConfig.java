@@ -0,0 +1,38 @@
+package com.springboot.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Tunes the application's {@code ObjectMapper}, which the message converters use to write
+ * every response straight to the servlet output stream. Blackbird replaces the reflective
+ * getter and setter calls of bean serializers with generated lambdas. The buffers a parser
+ * or generator borrows are recycled per thread by default, which a virtual thread, used
+ * once per request, never reuses; with virtual threads they come from a shared pool instead.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer sharedBufferPool(Environment environment) {
+        return builder -> {
+            if (Threading.VIRTUAL.isActive(environment)) {
+                builder.factory(JsonFactory.builder()
+                        .recyclerPool(JsonRecyclerPools.sharedConcurrentDequePool())
+                        .build());
+            }
+        };
+    }
+}
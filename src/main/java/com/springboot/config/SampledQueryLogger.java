@@ -0,0 +1,49 @@
+package com.springboot.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs executed statements with their bound parameters and timing: every statement at
+ * least as slow as the threshold at WARN, and a random sample of the rest at INFO.
+ */
+class SampledQueryLogger implements QueryExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SampledQueryLogger.class);
+
+    private final DefaultQueryLogEntryCreator entryCreator = new DefaultQueryLogEntryCreator();
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+
+    SampledQueryLogger(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() >= slowThresholdMillis) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Slow SQL: {}", entryCreator.getLogEntry(execInfo, queryInfoList, false, false, false));
+            }
+        } else if (sampled() && logger.isInfoEnabled()) {
+            logger.info("SQL: {}", entryCreator.getLogEntry(execInfo, queryInfoList, false, false, false));
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
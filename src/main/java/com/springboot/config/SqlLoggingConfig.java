@@ -0,0 +1,37 @@
+package com.springboot.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replaces {@code spring.jpa.show-sql}, which prints every statement to stdout on the
+ * calling thread. The data source is wrapped so statements go through SLF4J and the async
+ * appenders instead, with their parameters: a sample set by {@code sql.logging.sample-rate}
+ * and every statement slower than {@code sql.logging.slow-threshold}.
+ */
+@Configuration
+public class SqlLoggingConfig {
+
+    @Bean
+    static BeanPostProcessor sqlLoggingDataSourcePostProcessor(
+            @Value("${sql.logging.sample-rate:0.0}") double sampleRate,
+            @Value("${sql.logging.slow-threshold:200ms}") Duration slowThreshold) {
+        SampledQueryLogger queryLogger = new SampledQueryLogger(sampleRate, slowThreshold);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource).listener(queryLogger).build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.springboot.controller;
+
+import com.springboot.exception.PreconditionFailedException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Validators for conditional requests. A single record is tagged with its version, which
+ * every write to it bumps, as a strong ETag that If-Match can compare. Lists are tagged with
+ * the change counter of their table as a weak ETag: they only need If-None-Match, and Tomcat
+ * does not compress responses that carry a strong one.
+ * <p>
+ * The same record is sent as JSON, CBOR or Smile depending on Accept, so tags of the binary
+ * formats carry the format ({@code "7-cbor"}) and conditional responses vary by Accept;
+ * otherwise a cache could answer a JSON request with a CBOR body it revalidated.
+ */
+final class ETags {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final String CBOR_TAG = "-cbor";
+    private static final String SMILE_TAG = "-smile";
+    private static final List<String> FORMATS = List.of(CBOR_TAG, SMILE_TAG);
+
+    private ETags() {
+    }
+
+    static String ofVersion(long version, WebRequest request) {
+        return "\"" + version + format(request) + "\"";
+    }
+
+    static String ofList(long changes, WebRequest request) {
+        return "W/\"" + changes + format(request) + "\"";
+    }
+
+    /**
+     * Last-Modified in epoch millis, or -1 for a record written before update times were kept.
+     */
+    static long lastModified(Instant updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.toEpochMilli();
+    }
+
+    /**
+     * Same as {@link WebRequest#checkNotModified(String, long)}, with the tag of the
+     * version in the format the request negotiates and {@code Vary: Accept} on the answer.
+     */
+    static boolean checkNotModified(WebRequest request, long version, Instant updatedAt) {
+        varyByAccept(request);
+        return request.checkNotModified(ofVersion(version, request), lastModified(updatedAt));
+    }
+
+    static boolean checkListNotModified(WebRequest request, long changes) {
+        varyByAccept(request);
+        return request.checkNotModified(ofList(changes, request));
+    }
+
+    /**
+     * Version an If-Match header requires, or null when there is no header or it is {@code *}.
+     * A weak or foreign ETag can never match, so it fails the precondition.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String version = tag.substring(1, tag.length() - 1);
+            for (String format : FORMATS) {
+                if (version.endsWith(format)) {
+                    version = version.substring(0, version.length() - format.length());
+                }
+            }
+            try {
+                return Long.parseLong(version);
+            } catch (NumberFormatException ignored) {
+                // not one of ours
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not name a version of this record: " + ifMatch);
+    }
+
+    /**
+     * Tag suffix of the format the converters will pick for this request; JSON, which is
+     * also the answer to wildcards, has none.
+     */
+    private static String format(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return "";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return "";
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return CBOR_TAG;
+            }
+            if (type.equalsTypeAndSubtype(SMILE)) {
+                return SMILE_TAG;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON) || "json".equals(type.getSubtypeSuffix())) {
+                return "";
+            }
+        }
+        return "";
+    }
+
+    private static void varyByAccept(WebRequest request) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+    }
+}
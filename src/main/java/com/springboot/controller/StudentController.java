@@ -1,9 +1,16 @@
 package com.springboot.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.springboot.hateoas.StudentModelAssembler;
+import com.springboot.model.Gender;
 import com.springboot.model.Student;
 import com.springboot.model.StudentModel;
 import com.springboot.respone.ApiResponse;
+import com.springboot.respone.ArchiveJobStatus;
+import com.springboot.respone.BulkCreateResult;
+import com.springboot.service.StudentArchiveService;
 import com.springboot.service.StudentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,11 +18,25 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/student")
@@ -29,129 +50,239 @@ public class StudentController {
     @Autowired
     private StudentModelAssembler assembler;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StudentArchiveService studentArchiveService;
+
     public StudentController(StudentService studentService) {
         this.studentService = studentService;
     }
 
-    private ResponseEntity<ApiResponse> buildResponse(boolean success, String message, Object data, HttpStatus status) {
-        return new ResponseEntity<>(new ApiResponse(success, message, data), status);
+    private <T> ResponseEntity<ApiResponse<T>> buildResponse(boolean success, String message, T data, HttpStatus status) {
+        return new ResponseEntity<>(new ApiResponse<>(success, message, data), status);
+    }
+
+    /**
+     * Answers 304 when the client's copy of the student lists is current. The counter is read
+     * before the list, so the list sent with it is never older than its tag.
+     */
+    private boolean studentListNotModified(WebRequest request) {
+        return ETags.checkListNotModified(request, studentService.getStudentListVersion());
     }
 
     @PostMapping("/save")
     @Operation(summary = "save a new student", description = "Create and stores new student in the database")
-    public ResponseEntity<ApiResponse> saveStudent(@Valid @RequestBody Student student) {
+    public ResponseEntity<ApiResponse<StudentModel>> saveStudent(@Valid @RequestBody Student student) {
         logger.info("Received request to save new student");
         Student student_1 = studentService.createStudent(student);
         StudentModel model = assembler.toModel(student_1);
-        ApiResponse response = new ApiResponse(true, "Student added successfully", model);
+        ApiResponse<StudentModel> response = new ApiResponse<>(true, "Student added successfully", model);
         logger.debug("Student created with ID: {}", student_1.getStudentId());
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "save many students", description = "Create students from a JSON array or a newline-delimited " +
+            "JSON stream, reporting for each item whether it was created, a duplicate or invalid")
+    public ResponseEntity<ApiResponse<BulkCreateResult>> saveStudents(InputStream body) throws IOException {
+        logger.info("Received request to bulk save students");
+        try (MappingIterator<Student> students = objectMapper.readerFor(Student.class).readValues(body)) {
+            BulkCreateResult result = studentService.createStudents(students);
+            ApiResponse<BulkCreateResult> response = new ApiResponse<>(true, result.getCreated() + " students added successfully", result);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }
+    }
+
     @GetMapping("/{studentId}")
-    @Operation(summary = "Get student by ID", description = "Fetch student based on student ID")
-    public ResponseEntity<ApiResponse> getStudentById(@PathVariable Long studentId) {
+    @Operation(summary = "Get student by ID", description = "Fetch student based on student ID. Answers 304 " +
+            "to If-None-Match or If-Modified-Since when the student has not changed")
+    public ResponseEntity<ApiResponse<StudentModel>> getStudentById(@PathVariable Long studentId, WebRequest request) {
 
-        logger.info("Fetching student with ID: {}", studentId);
+        logger.debug("Fetching student with ID: {}", studentId);
 
+        // usually served by the students cache, so only the model and the body are saved
         Student student_2 = studentService.getStudentById(studentId);
+        if (ETags.checkNotModified(request, student_2.getVersion(), student_2.getUpdatedAt())) {
+            logger.debug("Student with ID {} not modified", studentId);
+            return null;
+        }
         StudentModel model = assembler.toModel(student_2);
         logger.debug("Successfully fetched student with ID: {}", studentId);
 
-        ApiResponse response = new ApiResponse(true, "Student is present with given Id :" + studentId, model);
+        ApiResponse<StudentModel> response = new ApiResponse<>(true, "Student is present with given Id :" + studentId, model);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping
-    @Operation(summary = "Get all students from database", description = "Fetch all students records")
-    public ResponseEntity<List<Student>> getAllEmployee() {
-        logger.info("Fetching all students");
-        List<Student> student_3 = studentService.getAllStudents();
-        ApiResponse response = new ApiResponse(true, "Getting all Objects are successfully..", student_3);
-        logger.debug("Fetched {} students", student_3.size());
-        return new ResponseEntity(response, HttpStatus.OK);
+    @Operation(summary = "Get all students from database", description = "Fetch one page of student records, " +
+            "selected with the page, size and sort parameters")
+    public ResponseEntity<ApiResponse<PagedModel<StudentModel>>> getAllEmployee(@PageableDefault(size = 20, sort = "studentId") Pageable pageable,
+                                                                                PagedResourcesAssembler<Student> pagedAssembler,
+                                                                                WebRequest request) {
+        logger.debug("Fetching students page {}", pageable.getPageNumber());
+        if (studentListNotModified(request)) {
+            return null;
+        }
+        Page<Student> student_3 = studentService.getAllStudents(pageable);
+        PagedModel<StudentModel> model = pagedAssembler.toModel(student_3, assembler);
+        ApiResponse<PagedModel<StudentModel>> response = new ApiResponse<>(true, "Getting all Objects are successfully..", model);
+        logger.debug("Fetched {} students", student_3.getNumberOfElements());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all students", description = "Stream every student record as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamAllStudents() {
+        logger.debug("Streaming all students");
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                long count = studentService.streamAllStudents(student -> {
+                    try {
+                        writer.write(student);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                logger.debug("Streamed {} students", count);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PutMapping("/{studentId}")
-    @Operation(summary = "Update student", description = "Updates student details based on ID")
-    public ResponseEntity<ApiResponse> updateStudent(@PathVariable Long studentId,
-                                                     @Valid @RequestBody Student student) {
+    @Operation(summary = "Update student", description = "Updates student details based on ID. With If-Match " +
+            "set to the student's ETag, fails with 412 if the student was changed since")
+    public ResponseEntity<ApiResponse<Student>> updateStudent(@PathVariable Long studentId,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                              @Valid @RequestBody Student student,
+                                                              WebRequest request) {
         logger.info("Updating student with ID: {}", studentId);
-        Student student_4 = studentService.updateStudent(studentId, student);
-        ApiResponse response = new ApiResponse(true, "Student updated successfully", student_4);
+        Long expectedVersion = ETags.expectedVersion(ifMatch);
+        Student student_4 = studentService.updateStudent(studentId, student, expectedVersion);
+        ApiResponse<Student> response = new ApiResponse<>(true, "Student updated successfully", student_4);
         logger.debug("Student with ID {} updated successfully", studentId);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        // the new version is only known when the request named the one it replaced
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (expectedVersion != null) {
+            ok.eTag(ETags.ofVersion(student_4.getVersion(), request));
+        }
+        return ok.body(response);
     }
 
     @DeleteMapping("/{studentId}")
     @Operation(summary = "Delete student Based on ID", description = "Remove student based of ID")
-    public ResponseEntity<ApiResponse> deleteStudent(@PathVariable Long studentId) {
+    public ResponseEntity<ApiResponse<Student>> deleteStudent(@PathVariable Long studentId) {
         logger.info("Deleting student with ID: {}", studentId);
         Student student_5 = studentService.deleteStudentById(studentId);
-        ApiResponse response = new ApiResponse(true, "Student deleted successfully..!!", student_5);
+        ApiResponse<Student> response = new ApiResponse<>(true, "Student deleted successfully..!!", student_5);
         logger.info("Student with ID {} deleted", studentId);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @DeleteMapping("/deleteAll")
     @Operation(summary = "Delete all students from database", description = "Delete all Records from database")
-    public ResponseEntity<ApiResponse> deleteAllStudents() {
+    public ResponseEntity<ApiResponse<Long>> deleteAllStudents() {
         logger.warn("Received request to delete all students");
-        studentService.deleteAllStudents();
-        ApiResponse response = new ApiResponse(true, "All students deleted successfully!", null);
-        logger.info("All students deleted");
+        long deleted = studentService.deleteAllStudents();
+        ApiResponse<Long> response = new ApiResponse<>(true, "All students deleted successfully!", deleted);
+        logger.info("{} students deleted", deleted);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping("/gender/{gender}")
-    @Operation(summary = "Get students based on gender", description = "Fetch students records based on gender")
-    public ResponseEntity<ApiResponse> getStudentsByGender(@PathVariable String gender) {
-        logger.info("Fetching students with gender: {}", gender);
-        List<Student> students = studentService.getStudentsByGender(gender);
-        ApiResponse response = new ApiResponse(true, "Students fetched by gender", students);
+    @Operation(summary = "Get students based on gender", description = "Fetch one page of student records based on " +
+            "gender (male, female or other), selected with the page, size and sort parameters")
+    public ResponseEntity<ApiResponse<PagedModel<StudentModel>>> getStudentsByGender(@PathVariable String gender,
+                                                                                     @PageableDefault(size = 20, sort = "studentId") Pageable pageable,
+                                                                                     PagedResourcesAssembler<Student> pagedAssembler,
+                                                                                     WebRequest request) {
+        logger.debug("Fetching students with gender: {}", gender);
+        if (studentListNotModified(request)) {
+            return null;
+        }
+        Page<Student> students = studentService.getStudentsByGender(gender, pageable);
+        PagedModel<StudentModel> model = pagedAssembler.toModel(students, assembler);
+        ApiResponse<PagedModel<StudentModel>> response = new ApiResponse<>(true, "Students fetched by gender", model);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @GetMapping("/stats/gender")
+    @Operation(summary = "Count students by gender", description = "Number of students of each gender, kept up to " +
+            "date in memory instead of counted on each request")
+    public ResponseEntity<ApiResponse<Map<Gender, Long>>> getGenderCounts() {
+        Map<Gender, Long> counts = studentService.getGenderCounts();
+        return buildResponse(true, "Student counts by gender", counts, HttpStatus.OK);
+    }
+
     @GetMapping("/email-domain/{domain}")
     @Operation(summary = "Get students based on domain", description = "Fetch students records based on their domain name")
-    public ResponseEntity<ApiResponse> getStudentsByEmailDomain(@PathVariable String domain) {
-        logger.info("Fetching students with email domain: {}", domain);
+    public ResponseEntity<ApiResponse<List<Student>>> getStudentsByEmailDomain(@PathVariable String domain,
+                                                                              WebRequest request) {
+        logger.debug("Fetching students with email domain: {}", domain);
+        if (studentListNotModified(request)) {
+            return null;
+        }
         List<Student> students = studentService.getStudentsByEmailDomain(domain);
-        ApiResponse response = new ApiResponse(true, "Students fetched by email domain", students);
+        ApiResponse<List<Student>> response = new ApiResponse<>(true, "Students fetched by email domain", students);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping("/top/{n}")
-    @Operation(summary = "Get to N students", description = "Fetch top N students based on their name in ascending order")
-    public ResponseEntity<ApiResponse> getTopNStudents(@PathVariable int n) {
-        logger.info("Fetching top {} students", n);
-        List<Student> topStudents = studentService.getTopNStudents(n);
+    @Operation(summary = "Get to N students", description = "Fetch top N students based on their name in ascending order. " +
+            "Pass afterName and afterId of the last student returned to fetch the next page")
+    public ResponseEntity<ApiResponse<List<Student>>> getTopNStudents(@PathVariable int n,
+                                                                      @RequestParam(required = false) String afterName,
+                                                                      @RequestParam(required = false) Long afterId,
+                                                                      WebRequest request) {
+        logger.debug("Fetching top {} students", n);
+        if (studentListNotModified(request)) {
+            return null;
+        }
+        List<Student> topStudents = studentService.getTopNStudents(n, afterName, afterId);
         return buildResponse(true, "Top " + n + " students fetched successfully", topStudents, HttpStatus.OK);
     }
 
     @GetMapping("/exists/{name}")
     @Operation(summary = "Check student is exists or not", description = "Chcek isStudent exists in database or not")
-    public ResponseEntity<ApiResponse> isStudentExistsByName(@PathVariable String name) {
-        logger.info("Checking existence of student by name: {}", name);
+    public ResponseEntity<ApiResponse<Boolean>> isStudentExistsByName(@PathVariable String name) {
+        logger.debug("Checking existence of student by name: {}", name);
         boolean exists = studentService.isStudentExistsWithName(name);
         String message = exists ? "Student exists" : "Student not found";
         return buildResponse(true, message, exists, HttpStatus.OK);
     }
 
     @DeleteMapping("/archive-delete")
-    @Operation(summary = "Archive and delete all student", description = "Log and delete all students ")
-    public ResponseEntity<ApiResponse> archiveAndDeleteAllStudents() {
+    @Operation(summary = "Archive and delete all student", description = "Start a background job that moves all students " +
+            "into the archive table; poll the returned Location for its progress")
+    public ResponseEntity<ApiResponse<ArchiveJobStatus>> archiveAndDeleteAllStudents() {
         logger.warn("Archiving and deleting all students");
-        studentService.archiveAndDeleteAll();
-        return buildResponse(true, "All students archived and deleted", null, HttpStatus.OK);
+        ArchiveJobStatus job = studentArchiveService.startArchiveAndPurge();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/student/archive-delete/" + job.getJobId()))
+                .body(new ApiResponse<>(true, "Archive and delete job accepted", job));
+    }
+
+    @GetMapping("/archive-delete/{jobId}")
+    @Operation(summary = "Archive job status", description = "Progress of an archive and delete job")
+    public ResponseEntity<ApiResponse<ArchiveJobStatus>> getArchiveJob(@PathVariable String jobId) {
+        ArchiveJobStatus job = studentArchiveService.getJob(jobId);
+        return buildResponse(true, "Archive job is " + job.getState(), job, HttpStatus.OK);
     }
 
     @PatchMapping("/{studentId}/update-email")
-    @Operation(summary = "Safe update email", description = "Safely update email of student ID ")
-    public ResponseEntity<ApiResponse> safeUpdateStudentEmail(@PathVariable Long studentId,
-                                                              @RequestParam String newEmail) {
+    @Operation(summary = "Safe update email", description = "Safely update email of student ID. With If-Match " +
+            "set to the student's ETag, fails with 412 if the student was changed since")
+    public ResponseEntity<ApiResponse<Student>> safeUpdateStudentEmail(@PathVariable Long studentId,
+                                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                       @RequestParam String newEmail,
+                                                                       WebRequest request) {
         logger.info("Safely updating email for student ID: {}", studentId);
-        Student updatedStudent = studentService.safeUpdateStudentEmail(studentId, newEmail);
-        return buildResponse(true, "Student email updated successfully", updatedStudent, HttpStatus.OK);
+        Student updatedStudent = studentService.safeUpdateStudentEmail(studentId, newEmail, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ETags.ofVersion(updatedStudent.getVersion(), request))
+                .lastModified(ETags.lastModified(updatedStudent.getUpdatedAt()))
+                .body(new ApiResponse<>(true, "Student email updated successfully", updatedStudent));
     }
 }
\ No newline at end of file
@@ -11,10 +11,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/teacher")
@@ -28,11 +31,24 @@ public class TeacherController {
 
     @PostMapping("/save")
     @Operation(summary = "save a new Teacher", description = "Create and stores new T in the database")
-    public ResponseEntity<ApiResponse> saveTeacher(@Valid @RequestBody Teacher teacher) {
+    public ResponseEntity<ApiResponse<Teacher>> saveTeacher(@Valid @RequestBody Teacher teacher) {
         logger.info("Received request to save new teacher");
         Teacher teacher1 = teacherService.createTeacher(teacher);
-        ApiResponse response = new ApiResponse(true, "Teacher added successfully", teacher1);
+        ApiResponse<Teacher> response = new ApiResponse<>(true, "Teacher added successfully", teacher1);
         logger.debug("Teacher created with ID: {}", teacher1.getTeacher_Id());
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
+
+    @GetMapping("/{teacherId}")
+    @Operation(summary = "Get teacher by ID", description = "Fetch teacher based on teacher ID. Answers 304 " +
+            "to If-None-Match or If-Modified-Since when the teacher has not changed")
+    public ResponseEntity<ApiResponse<Teacher>> getTeacherById(@PathVariable Long teacherId, WebRequest request) {
+        logger.info("Fetching teacher with ID: {}", teacherId);
+        Teacher teacher = teacherService.getTeacherById(teacherId);
+        if (ETags.checkNotModified(request, teacher.getVersion(), teacher.getUpdatedAt())) {
+            return null;
+        }
+        ApiResponse<Teacher> response = new ApiResponse<>(true, "Teacher is present with given Id :" + teacherId, teacher);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
 }
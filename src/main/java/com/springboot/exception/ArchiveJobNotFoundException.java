@@ -0,0 +1,11 @@
+package com.springboot.exception;
+
+public class ArchiveJobNotFoundException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ArchiveJobNotFoundException(String message) {
+		super(message);
+	}
+
+}
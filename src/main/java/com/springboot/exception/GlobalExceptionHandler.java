@@ -3,55 +3,82 @@ package com.springboot.exception;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import com.springboot.respone.ApiResponse;
+import com.springboot.respone.ErrorResponse;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+	private static final ErrorResponse CONCURRENT_UPDATE =
+			ErrorResponse.of(HttpStatus.CONFLICT, "The record was changed by another request, please retry");
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
-	public ResponseEntity<ApiResponse> handleValidationException(MethodArgumentNotValidException ex) {
+	public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationException(MethodArgumentNotValidException ex) {
 		Map<String, String> errors = new HashMap<>();
 		ex.getBindingResult().getAllErrors().forEach(error -> {
 			String fieldName = ((FieldError) error).getField();
 			String errorMessage = error.getDefaultMessage();
 			errors.put(fieldName, errorMessage);
 		});
-		ApiResponse response = new ApiResponse(false, "Validation error", errors);
+		ApiResponse<Map<String, String>> response = new ApiResponse<>(false, "Validation error", errors);
 		return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
 	}
 
 	@ExceptionHandler(StudentNotFoundException.class)
-	public ResponseEntity<Map<String, Object>> handleNoDataFoundException(StudentNotFoundException x) {
-		Map<String, Object> errorResponse = new HashMap<>();
-		errorResponse.put("status", false);
-		errorResponse.put("message", x.getMessage());
-		errorResponse.put("errorCode", HttpStatus.NOT_FOUND);
-		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+	public ResponseEntity<ErrorResponse> handleNoDataFoundException(StudentNotFoundException x) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.notFound(x.getMessage()));
+	}
+
+	@ExceptionHandler(TeacherNotFoundException.class)
+	public ResponseEntity<ErrorResponse> handleTeacherNotFoundException(TeacherNotFoundException x) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.notFound(x.getMessage()));
+	}
+
+	@ExceptionHandler(ArchiveJobNotFoundException.class)
+	public ResponseEntity<ErrorResponse> handleArchiveJobNotFoundException(ArchiveJobNotFoundException x) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.notFound(x.getMessage()));
 	}
 
 	@ExceptionHandler(NoDataAvailableException.class)
-	public ResponseEntity<Map<String, Object>> handleNoDataFoundException(NoDataAvailableException exx) {
-		Map<String, Object> error = new HashMap<>();
-		error.put("status", false);
-		error.put("message", exx.getMessage());
-		error.put("error", HttpStatus.NOT_FOUND);
-		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+	public ResponseEntity<ErrorResponse> handleNoDataFoundException(NoDataAvailableException exx) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.of(HttpStatus.NOT_FOUND, exx.getMessage()));
 	}
 
 	@ExceptionHandler(DuplicateFoundException.class)
-	public ResponseEntity<Map<String, Object>> duplicateFoundException(DuplicateFoundException exxx) {
-		Map<String, Object> error = new HashMap<>();
-		error.put("status", false);
-		error.put("message", exxx.getMessage());
-		error.put("error", HttpStatus.CONFLICT);
-		return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+	public ResponseEntity<ErrorResponse> duplicateFoundException(DuplicateFoundException exxx) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(ErrorResponse.of(HttpStatus.CONFLICT, exxx.getMessage()));
+	}
+
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public ResponseEntity<ErrorResponse> concurrentUpdateException(ObjectOptimisticLockingFailureException ex) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(CONCURRENT_UPDATE);
+	}
+
+	@ExceptionHandler(PreconditionFailedException.class)
+	public ResponseEntity<ErrorResponse> preconditionFailedException(PreconditionFailedException ex) {
+		return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+				.body(ErrorResponse.of(HttpStatus.PRECONDITION_FAILED, ex.getMessage()));
+	}
+
+	@ExceptionHandler(PropertyReferenceException.class)
+	public ResponseEntity<ErrorResponse> invalidSortPropertyException(PropertyReferenceException ex) {
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ErrorResponse.of(HttpStatus.BAD_REQUEST, ex.getMessage()));
+	}
 
+	@ExceptionHandler({JsonProcessingException.class, RuntimeJsonMappingException.class})
+	public ResponseEntity<ErrorResponse> malformedBodyException(Exception ex) {
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+				.body(ErrorResponse.of(HttpStatus.BAD_REQUEST, "Malformed request body: " + ex.getMessage()));
 	}
 
 }
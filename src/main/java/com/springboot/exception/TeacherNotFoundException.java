@@ -0,0 +1,11 @@
+package com.springboot.exception;
+
+public class TeacherNotFoundException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public TeacherNotFoundException(String message) {
+		super(message);
+	}
+
+}
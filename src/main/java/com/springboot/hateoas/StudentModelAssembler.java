@@ -1,25 +1,82 @@
 package com.springboot.hateoas;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.springboot.controller.StudentController;
 import com.springboot.model.Student;
 import com.springboot.model.StudentModel;
 
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+/**
+ * Builds {@link StudentModel}s without going through {@code methodOn} for every student.
+ * The controller base URI is resolved once per request and the links derived from it are
+ * cached per base URI, so each model only needs its id appended to a prefix.
+ */
 @Component
 public class StudentModelAssembler implements RepresentationModelAssembler<Student, StudentModel> {
+
+    private static final String LINKS_ATTRIBUTE = StudentModelAssembler.class.getName() + ".LINKS";
+
+    private final Cache<String, StudentLinks> linksByBaseUri = Caffeine.newBuilder()
+            .maximumSize(64)
+            .build();
+
     @Override
     public StudentModel toModel(Student student) {
+        return toModel(student, currentLinks());
+    }
+
+    @Override
+    public CollectionModel<StudentModel> toCollectionModel(Iterable<? extends Student> students) {
+        StudentLinks links = currentLinks();
+        List<StudentModel> models = new ArrayList<>();
+        for (Student student : students) {
+            models.add(toModel(student, links));
+        }
+        return CollectionModel.of(models, links.allStudents().withSelfRel());
+    }
+
+    private StudentModel toModel(Student student, StudentLinks links) {
         StudentModel model = new StudentModel(student);
-        model.add(linkTo(methodOn(StudentController.class).getStudentById(student.getStudentId())).withSelfRel());
-        model.add(linkTo(methodOn(StudentController.class).getAllEmployee()).withRel("all-students"));
-        model.add(linkTo(methodOn(StudentController.class).deleteStudent(student.getStudentId())).withRel("delete"));
-        model.add(linkTo(methodOn(StudentController.class).updateStudent(student.getStudentId(), student)).withRel("update"));
+        Link self = Link.of(links.itemPrefix() + student.getStudentId());
+        model.add(self);
+        model.add(links.allStudents());
+        model.add(self.withRel("delete"));
+        model.add(self.withRel("update"));
         return model;
+    }
+
+    private StudentLinks currentLinks() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return resolveLinks();
+        }
+        StudentLinks links = (StudentLinks) request.getAttribute(LINKS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (links == null) {
+            links = resolveLinks();
+            request.setAttribute(LINKS_ATTRIBUTE, links, RequestAttributes.SCOPE_REQUEST);
+        }
+        return links;
+    }
+
+    private StudentLinks resolveLinks() {
+        String baseUri = linkTo(StudentController.class).toUri().toString();
+        return linksByBaseUri.get(baseUri, uri -> new StudentLinks(uri + "/",
+                linkTo(methodOn(StudentController.class).getAllEmployee(null, null, null)).withRel("all-students")));
+    }
 
+    private record StudentLinks(String itemPrefix, Link allStudents) {
     }
 }
@@ -0,0 +1,142 @@
+package com.springboot.index;
+
+import com.springboot.model.Gender;
+import com.springboot.repository.StudentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process count of students per {@link Gender}, so the gender statistics and the totals
+ * of gender pages are answered without counting rows.
+ * <p>
+ * The counts are loaded with one grouped query at startup and then moved by every write
+ * made through this instance. Writes made by other instances, and writes that race the
+ * reload, are only picked up by the next reload, which runs every
+ * {@code student.gender-counts.refresh-interval} and after the bulk deletes.
+ */
+@Component
+public class GenderCounts {
+    private static final Logger logger = LoggerFactory.getLogger(GenderCounts.class);
+
+    private final StudentRepository studentrepository;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService refresher;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile LongAdder[] active = newCounters();
+    private volatile LongAdder[] pending;
+
+    @Autowired
+    public GenderCounts(StudentRepository studentrepository,
+                        @Value("${student.gender-counts.refresh-interval:10m}") Duration refreshInterval) {
+        this.studentrepository = studentrepository;
+        this.refreshInterval = refreshInterval;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gender-counts-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        long refreshMillis = refreshInterval.toMillis();
+        if (refreshMillis > 0) {
+            refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reloads the counts from the database. Writes recorded while the query runs are
+     * applied to the new counts as well.
+     */
+    public void rebuild() {
+        // a lock rather than synchronized: the reload runs a query, which would pin a virtual thread
+        rebuildLock.lock();
+        try {
+            LongAdder[] fresh = newCounters();
+            pending = fresh;
+            try {
+                for (StudentRepository.GenderCount row : studentrepository.countByGender()) {
+                    fresh[row.getGender().ordinal()].add(row.getStudents());
+                }
+                active = fresh;
+            } finally {
+                pending = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+        logger.debug("Gender counts reloaded: {}", counts());
+    }
+
+    public void add(Gender gender, long delta) {
+        if (gender == null || delta == 0) {
+            return;
+        }
+        LongAdder[] current = active;
+        current[gender.ordinal()].add(delta);
+        LongAdder[] building = pending;
+        if (building != null && building != current) {
+            building[gender.ordinal()].add(delta);
+        }
+    }
+
+    public void move(Gender from, Gender to) {
+        if (from != to) {
+            add(from, -1);
+            add(to, 1);
+        }
+    }
+
+    public long count(Gender gender) {
+        return Math.max(0, active[gender.ordinal()].sum());
+    }
+
+    public Map<Gender, Long> counts() {
+        Map<Gender, Long> counts = new EnumMap<>(Gender.class);
+        for (Gender gender : Gender.values()) {
+            counts.put(gender, count(gender));
+        }
+        return counts;
+    }
+
+    private void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            logger.warn("Could not reload gender counts", ex);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[Gender.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
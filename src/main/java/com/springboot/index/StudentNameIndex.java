@@ -0,0 +1,95 @@
+package com.springboot.index;
+
+import com.springboot.model.Student;
+import com.springboot.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * In-process Bloom filter over normalized student names, consulted before the
+ * database on existence checks so that definite negatives never leave the JVM.
+ * <p>
+ * The filter only sees writes made through this instance, so it is disabled by
+ * default and should only be enabled when a single instance owns the table.
+ * While disabled, or before the first rebuild completes, every name is
+ * reported as possibly present.
+ */
+@Component
+public class StudentNameIndex {
+    private static final Logger logger = LoggerFactory.getLogger(StudentNameIndex.class);
+
+    private final StudentRepository studentrepository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter active;
+    private volatile BloomFilter pending;
+
+    @Autowired
+    public StudentNameIndex(StudentRepository studentrepository,
+                            @Value("${student.name-filter.enabled:false}") boolean enabled,
+                            @Value("${student.name-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${student.name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.studentrepository = studentrepository;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveRate);
+        pending = fresh;
+        long count = 0;
+        try (Stream<String> names = studentrepository.streamAllNames()) {
+            for (String name : (Iterable<String>) names::iterator) {
+                String nameKey = Student.nameKeyOf(name);
+                if (nameKey != null) {
+                    fresh.put(nameKey);
+                    count++;
+                }
+            }
+        }
+        active = fresh;
+        pending = null;
+        logger.info("Student name filter rebuilt with {} names", count);
+    }
+
+    public void add(String name) {
+        String nameKey = Student.nameKeyOf(name);
+        if (!enabled || nameKey == null) {
+            return;
+        }
+        BloomFilter current = active;
+        if (current != null) {
+            current.put(nameKey);
+        }
+        BloomFilter building = pending;
+        if (building != null) {
+            building.put(nameKey);
+        }
+    }
+
+    /**
+     * @return false only if no student with this normalized name can exist
+     */
+    public boolean mightContain(String nameKey) {
+        BloomFilter current = active;
+        return current == null || nameKey == null || current.mightContain(nameKey);
+    }
+}
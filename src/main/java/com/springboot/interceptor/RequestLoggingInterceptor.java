@@ -1,30 +1,70 @@
 package com.springboot.interceptor;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every handled request into the {@code api.requests} timer, tagged by handler
+ * pattern, method, status and exception, with p50/p95/p99 and a percentile histogram.
+ * Only a sample of requests, set by {@code request.logging.sample-rate}, is also logged.
+ */
 @Component
 public class RequestLoggingInterceptor implements HandlerInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestLoggingInterceptor.class);
-    private static final String START_TIME = "startTime";
+    private static final String START_TIME = RequestLoggingInterceptor.class.getName() + ".startTime";
+
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+
+    public RequestLoggingInterceptor(MeterRegistry meterRegistry,
+                                     @Value("${request.logging.sample-rate:1.0}") double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+    }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        long startTime = System.currentTimeMillis();
-        request.setAttribute(START_TIME, startTime);
-        logger.info("Incoming request:{} {}", request.getMethod(), request.getRequestURI());
+        request.setAttribute(START_TIME, System.nanoTime());
         return true;
     }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
-        long startTime = (long) request.getAttribute(START_TIME);
-        long endTime = System.currentTimeMillis();
-        long duration = endTime - startTime;
-        logger.info("Completed request: {} {} - time Taken: {} ms", request.getMethod(), request.getRequestURI(), duration);
+        Object startTime = request.getAttribute(START_TIME);
+        if (startTime == null) {
+            return;
+        }
+        long duration = System.nanoTime() - (long) startTime;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // exceptions handled by GlobalExceptionHandler are not passed in, only exposed as an attribute
+        Object exception = ex != null ? ex : request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+        Timer.builder("api.requests")
+                .description("Requests handled by the API controllers")
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .tag("method", request.getMethod())
+                .tag("status", Integer.toString(response.getStatus()))
+                .tag("exception", exception != null ? exception.getClass().getSimpleName() : "none")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duration, TimeUnit.NANOSECONDS);
+
+        if (sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            logger.info("Completed request: {} {} - status {} - time Taken: {} ms", request.getMethod(),
+                    request.getRequestURI(), response.getStatus(), TimeUnit.NANOSECONDS.toMillis(duration));
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.springboot.model;
+
+import java.util.Locale;
+
+/**
+ * Gender of a student as stored in the {@code gender} column, one character per row.
+ * The free-text {@link Student#getStudentGender()} is kept as entered; this is the
+ * normalized value it is filed under for lookups and counts.
+ */
+public enum Gender {
+	MALE('M'),
+	FEMALE('F'),
+	OTHER('O');
+
+	private final char code;
+
+	Gender(char code) {
+		this.code = code;
+	}
+
+	public char getCode() {
+		return code;
+	}
+
+	public static Gender fromCode(char code) {
+		for (Gender gender : values()) {
+			if (gender.code == code) {
+				return gender;
+			}
+		}
+		throw new IllegalArgumentException("Unknown gender code: " + code);
+	}
+
+	/**
+	 * Maps free text to a gender: "male" or "m" and "female" or "f" in any case,
+	 * anything else to {@link #OTHER}. Returns null for null or blank text.
+	 */
+	public static Gender of(String text) {
+		if (text == null || text.isBlank()) {
+			return null;
+		}
+		return switch (text.trim().toLowerCase(Locale.ROOT)) {
+			case "male", "m" -> MALE;
+			case "female", "f" -> FEMALE;
+			default -> OTHER;
+		};
+	}
+}
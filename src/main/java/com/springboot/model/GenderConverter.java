@@ -0,0 +1,22 @@
+package com.springboot.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link Gender} as its one-character code rather than its name or ordinal,
+ * so the column stays small and reordering the enum cannot change stored values.
+ */
+@Converter(autoApply = true)
+public class GenderConverter implements AttributeConverter<Gender, String> {
+
+	@Override
+	public String convertToDatabaseColumn(Gender gender) {
+		return gender == null ? null : String.valueOf(gender.getCode());
+	}
+
+	@Override
+	public Gender convertToEntityAttribute(String code) {
+		return code == null || code.isEmpty() ? null : Gender.fromCode(code.charAt(0));
+	}
+}
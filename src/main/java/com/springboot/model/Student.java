@@ -1,23 +1,43 @@
 package com.springboot.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+import java.util.Locale;
+
 @NoArgsConstructor
-@AllArgsConstructor
 @Setter
 @Getter
 @Entity
-@Table(name = "STUDENT-TABLE")
+@Table(name = "STUDENT-TABLE", indexes = {
+		@Index(name = "idx_student_email_domain", columnList = "email_domain"),
+		@Index(name = "uk_student_name_key_id", columnList = "student_name_key, studentId", unique = true),
+		@Index(name = "idx_student_gender", columnList = "gender, studentId")
+}, uniqueConstraints = @UniqueConstraint(name = Student.EMAIL_UNIQUE_CONSTRAINT, columnNames = "studentEmail"))
 public class Student {
+
+	/**
+	 * Ids are handed out in blocks of this size so inserts can be batched;
+	 * IDENTITY columns force Hibernate to insert rows one at a time.
+	 */
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	/**
+	 * Keeps emails unique even when two requests check for the same one at once;
+	 * writes that violate it are reported as duplicates.
+	 */
+	public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_student_email";
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "student_ids")
+	@TableGenerator(name = "student_ids", table = "student_id_generator", pkColumnValue = "student_id",
+			allocationSize = Student.ID_ALLOCATION_SIZE)
 	private Long studentId;
 
 
@@ -30,5 +50,73 @@ public class Student {
 
 	@NotBlank(message = "Gender is mandatory")
 	private String studentGender;
+
+	/**
+	 * Lower-cased part of {@link #studentEmail} after the '@', stored so that
+	 * domain lookups can use an index instead of scanning every row.
+	 */
+	@JsonIgnore
+	@Column(name = "email_domain")
+	private String emailDomain;
+
+	/**
+	 * Lower-cased {@link #studentName}; together with the id it gives a stable,
+	 * index-ordered sort key for top-N queries and keyset paging, and serves
+	 * case-insensitive name existence checks without wrapping the column.
+	 */
+	@JsonIgnore
+	@Column(name = "student_name_key")
+	private String studentNameKey;
+
+	/**
+	 * {@link #studentGender} filed under one of a few codes, so gender lookups and counts
+	 * use a small index instead of matching free text.
+	 */
+	@JsonIgnore
+	@Column(name = "gender", columnDefinition = "char(1)")
+	private Gender gender;
+
+	/**
+	 * Bumped by every write, including the bulk updates in the repository, so an
+	 * entity saved from a stale read fails instead of overwriting a newer row.
+	 */
+	@JsonIgnore
+	@Version
+	private long version;
+
+	/**
+	 * Time of the last write, set together with {@link #version}; sent as Last-Modified.
+	 */
+	@JsonIgnore
+	@Column(name = "updated_at")
+	private Instant updatedAt;
+
+	public Student(Long studentId, String studentName, String studentEmail, String studentGender) {
+		this.studentId = studentId;
+		this.studentName = studentName;
+		this.studentEmail = studentEmail;
+		this.studentGender = studentGender;
+	}
+
+	@PrePersist
+	@PreUpdate
+	void normalize() {
+		this.emailDomain = emailDomainOf(studentEmail);
+		this.studentNameKey = nameKeyOf(studentName);
+		this.gender = Gender.of(studentGender);
+		this.updatedAt = Instant.now();
+	}
+
+	public static String emailDomainOf(String email) {
+		if (email == null) {
+			return null;
+		}
+		String domain = email.substring(email.lastIndexOf('@') + 1).trim();
+		return domain.isEmpty() ? null : domain.toLowerCase(Locale.ROOT);
+	}
+
+	public static String nameKeyOf(String name) {
+		return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+	}
 	
 }
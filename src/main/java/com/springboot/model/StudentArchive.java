@@ -0,0 +1,31 @@
+package com.springboot.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A student removed by the archive-and-purge job, keeping its original id.
+ */
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@Table(name = "student_archive")
+public class StudentArchive {
+
+	@Id
+	private Long studentId;
+
+	private String studentName;
+
+	private String studentEmail;
+
+	private String studentGender;
+
+	private Instant archivedAt;
+
+}
@@ -0,0 +1,28 @@
+package com.springboot.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Number of writes made to a table, bumped after each of them. Lists read from the table
+ * take their ETag from it, so an unchanged list is recognised without reading its rows.
+ */
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@Table(name = "table_change_counter")
+public class TableChangeCounter {
+
+	public static final String STUDENTS = "student-table";
+
+	@Id
+	private String tableName;
+
+	private long changes;
+
+}
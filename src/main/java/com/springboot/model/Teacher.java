@@ -1,5 +1,6 @@
 package com.springboot.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -8,12 +9,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
 @Entity
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "teachers")
+@Table(name = "teachers", indexes = @Index(name = "idx_teacher_email", columnList = "teacherEmail"))
 public class Teacher {
 
     @Id
@@ -29,4 +32,17 @@ public class Teacher {
 
     @NotBlank(message = "Gender is mandatory")
     private String teacherGender;
+
+    @JsonIgnore
+    @Version
+    private long version;
+
+    @JsonIgnore
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
+    }
 }
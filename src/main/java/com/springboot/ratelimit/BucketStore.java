@@ -0,0 +1,26 @@
+package com.springboot.ratelimit;
+
+import io.github.bucket4j.ConsumptionProbe;
+
+/**
+ * Where {@link RateLimitingFilter} keeps its token buckets. {@link LocalBucketStore} limits
+ * per JVM; {@link JdbcBucketStore} shares the limit between every instance using the same
+ * database.
+ */
+public interface BucketStore {
+
+    /**
+     * Takes one token from the bucket of {@code key} under {@code policy}.
+     */
+    ConsumptionProbe tryConsume(RateLimitProperties.Policy policy, String key);
+
+    /**
+     * Drops state that is no longer needed. Called periodically by the filter.
+     */
+    void sweep();
+
+    /**
+     * Number of client keys currently tracked in memory.
+     */
+    long trackedKeys();
+}
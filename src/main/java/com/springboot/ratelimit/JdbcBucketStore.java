@@ -0,0 +1,234 @@
+package com.springboot.ratelimit;
+
+import io.github.bucket4j.ConsumptionProbe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buckets shared through the {@code rate_limit_bucket} table (created by the V6 migration),
+ * so the limit holds across every instance using the same database.
+ * <p>
+ * Each row counts the tokens consumed in the current fixed window of its policy; windows
+ * are aligned to the epoch so every instance agrees on them. Instead of a round trip per
+ * request an instance reserves a few tokens at a time with a compare-and-set update and
+ * hands them out locally until they run out or the window ends. Once a row is exhausted
+ * the instance rejects locally until the window ends.
+ * <p>
+ * When the table fails or answers slower than {@code rate-limit.jdbc.slow-threshold}, the
+ * store falls back to its local buckets for {@code rate-limit.jdbc.fallback-period}. A
+ * request whose compare-and-sets all lose to other instances is also answered by the local
+ * bucket: the row still had tokens, so it must not be rejected on the table's account.
+ */
+public class JdbcBucketStore implements BucketStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcBucketStore.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int CAS_ATTEMPTS = 5;
+    private static final long CAS_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private static final String SELECT = "select window_start, consumed from rate_limit_bucket where bucket_key = ?";
+    private static final String INSERT = "insert into rate_limit_bucket (bucket_key, window_start, consumed) values (?, ?, ?)";
+    private static final String COMPARE_AND_SET = "update rate_limit_bucket set window_start = ?, consumed = ? "
+            + "where bucket_key = ? and window_start = ? and consumed = ?";
+    private static final String DELETE_IDLE = "delete from rate_limit_bucket where window_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BucketStore fallback;
+    private final long reservationSize;
+    private final long slowThresholdNanos;
+    private final long fallbackPeriodMillis;
+    private final long idleMillis;
+    private final Map<RateLimitProperties.Policy, PolicyLeases> policies = new IdentityHashMap<>();
+
+    private volatile long degradedUntilMillis;
+
+    public JdbcBucketStore(JdbcTemplate jdbcTemplate, RateLimitProperties properties, BucketStore fallback) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fallback = fallback;
+        this.reservationSize = Math.max(1, properties.getJdbc().getReservationSize());
+        this.slowThresholdNanos = properties.getJdbc().getSlowThreshold().toNanos();
+        this.fallbackPeriodMillis = properties.getJdbc().getFallbackPeriod().toMillis();
+        this.idleMillis = properties.effectiveIdleTimeout().toMillis();
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            policies.put(policy, new PolicyLeases(policy, properties.getMaxKeys(), idleMillis));
+        }
+    }
+
+    @Override
+    public ConsumptionProbe tryConsume(RateLimitProperties.Policy policy, String key) {
+        long now = System.currentTimeMillis();
+        if (now < degradedUntilMillis) {
+            return fallback.tryConsume(policy, key);
+        }
+        PolicyLeases leases = policies.get(policy);
+        Lease lease = leases.table.get(key, now, k -> new Lease());
+        long windowStart = now - Math.floorMod(now, leases.periodMillis);
+        // a lock rather than synchronized: the reservation does JDBC I/O, which would pin a virtual thread
+        lease.lock.lock();
+        try {
+            if (lease.windowStart != windowStart || (lease.tokens == 0 && lease.remainingInStore > 0)) {
+                try {
+                    if (!reserve(leases, key, windowStart, lease)) {
+                        return fallback.tryConsume(policy, key);
+                    }
+                } catch (DataAccessException ex) {
+                    degrade(now, "failed: " + ex.getMessage());
+                    return fallback.tryConsume(policy, key);
+                }
+            }
+            long nanosToReset = TimeUnit.MILLISECONDS.toNanos(windowStart + leases.periodMillis - now);
+            if (lease.tokens > 0) {
+                lease.tokens--;
+                return ConsumptionProbe.consumed(lease.tokens + lease.remainingInStore, nanosToReset);
+            }
+            return ConsumptionProbe.rejected(0, nanosToReset, nanosToReset);
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    @Override
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (PolicyLeases leases : policies.values()) {
+            leases.table.removeIdle(now);
+        }
+        fallback.sweep();
+        if (now >= degradedUntilMillis) {
+            try {
+                jdbcTemplate.update(DELETE_IDLE, now - idleMillis);
+            } catch (DataAccessException ex) {
+                logger.warn("Could not delete idle rate limit buckets: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public long trackedKeys() {
+        return policies.values().stream().mapToLong(leases -> leases.table.size()).sum() + fallback.trackedKeys();
+    }
+
+    /** Whether requests are currently served by the local fallback. */
+    boolean isDegraded() {
+        return System.currentTimeMillis() < degradedUntilMillis;
+    }
+
+    /**
+     * Refills the lease from the table. Returns false when every compare-and-set lost to
+     * another instance, leaving the lease empty so the next request tries again.
+     */
+    private boolean reserve(PolicyLeases leases, String key, long windowStart, Lease lease) {
+        String bucketKey = leases.bucketKey(key);
+        long started = System.nanoTime();
+        long backedOff = 0;
+        boolean answered = false;
+        // until a reservation succeeds the lease is empty; what is left in the table is
+        // unknown, so the next request tries again
+        lease.reset(windowStart, 0, 1);
+        for (int attempt = 0; attempt < CAS_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                // random backoff so instances that collided do not collide again in lockstep
+                long pause = ThreadLocalRandom.current().nextLong(CAS_BACKOFF_NANOS << (attempt - 1));
+                LockSupport.parkNanos(pause);
+                backedOff += pause;
+            }
+            List<long[]> rows = jdbcTemplate.query(SELECT,
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, bucketKey);
+            long consumed = rows.isEmpty() || rows.get(0)[0] != windowStart ? 0 : rows.get(0)[1];
+            long remaining = leases.capacity - consumed;
+            long grant = Math.min(reservationSize, Math.max(1, remaining / 2));
+            if (remaining <= 0) {
+                lease.reset(windowStart, 0, 0);
+                answered = true;
+                break;
+            }
+            if (rows.isEmpty()) {
+                try {
+                    jdbcTemplate.update(INSERT, bucketKey, windowStart, grant);
+                } catch (DuplicateKeyException ex) {
+                    continue;
+                }
+            } else if (jdbcTemplate.update(COMPARE_AND_SET, windowStart, consumed + grant,
+                    bucketKey, rows.get(0)[0], rows.get(0)[1]) == 0) {
+                continue;
+            }
+            lease.reset(windowStart, grant, remaining - grant);
+            answered = true;
+            break;
+        }
+        long elapsed = System.nanoTime() - started - backedOff;
+        if (elapsed > slowThresholdNanos) {
+            degrade(System.currentTimeMillis(), "took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        }
+        if (!answered) {
+            logger.debug("Lost {} reservations in a row for {}, using the local bucket", CAS_ATTEMPTS, bucketKey);
+        }
+        return answered;
+    }
+
+    private void degrade(long now, String reason) {
+        if (now >= degradedUntilMillis) {
+            logger.warn("Rate limit table {}, using local buckets for {}ms", reason, fallbackPeriodMillis);
+        }
+        degradedUntilMillis = now + fallbackPeriodMillis;
+    }
+
+    private static final class Lease {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private long windowStart = Long.MIN_VALUE;
+        private long tokens;
+        private long remainingInStore;
+
+        private void reset(long windowStart, long tokens, long remainingInStore) {
+            this.windowStart = windowStart;
+            this.tokens = tokens;
+            this.remainingInStore = remainingInStore;
+        }
+    }
+
+    private static final class PolicyLeases {
+
+        private final String id;
+        private final long capacity;
+        private final long periodMillis;
+        private final KeyTable<Lease> table;
+
+        private PolicyLeases(RateLimitProperties.Policy policy, long maxKeys, long idleMillis) {
+            this.id = policy.getMethods() + " " + policy.getPattern() + " ";
+            this.capacity = policy.getCapacity();
+            this.periodMillis = policy.getPeriod().toMillis();
+            this.table = new KeyTable<>(maxKeys, idleMillis);
+        }
+
+        private String bucketKey(String key) {
+            String bucketKey = id + key;
+            return bucketKey.length() <= MAX_KEY_LENGTH ? bucketKey : id + sha256(key);
+        }
+
+        private static String sha256(String value) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(digest);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.springboot.ratelimit;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Per-client state of one policy. Entries idle for longer than the idle timeout are
+ * dropped by {@link #removeIdle(long)}, and a table that reaches its key cap drops its
+ * least recently used tenth before admitting a new key.
+ */
+final class KeyTable<V> {
+
+    private final long maxKeys;
+    private final long idleMillis;
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    KeyTable(long maxKeys, long idleMillis) {
+        this.maxKeys = maxKeys;
+        this.idleMillis = idleMillis;
+    }
+
+    V get(String key, long now, Function<String, V> factory) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return insert(key, now, factory);
+        }
+        if (entry.lastAccessMillis != now) {
+            entry.lastAccessMillis = now;
+        }
+        return entry.value;
+    }
+
+    long size() {
+        return entries.size();
+    }
+
+    void removeIdle(long now) {
+        long cutoff = now - idleMillis;
+        entries.values().removeIf(entry -> entry.lastAccessMillis < cutoff);
+    }
+
+    /**
+     * Admits new keys one at a time, so the size check and the insert cannot interleave with
+     * another new key and the table never grows past {@code maxKeys}. Only the first request
+     * of a client takes the lock.
+     */
+    private V insert(String key, long now, Function<String, V> factory) {
+        evictionLock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                if (entries.size() >= maxKeys) {
+                    evictLeastRecentlyUsed(now);
+                }
+                entry = new Entry<>(factory.apply(key), now);
+                entries.put(key, entry);
+            }
+            return entry.value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void evictLeastRecentlyUsed(long now) {
+        removeIdle(now);
+        if (entries.isEmpty() || entries.size() < maxKeys) {
+            return;
+        }
+        long[] accessTimes = entries.values().stream().mapToLong(entry -> entry.lastAccessMillis).toArray();
+        Arrays.sort(accessTimes);
+        long cutoff = accessTimes[accessTimes.length / 10];
+        entries.values().removeIf(entry -> entry.lastAccessMillis <= cutoff);
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private volatile long lastAccessMillis;
+
+        private Entry(V value, long now) {
+            this.value = value;
+            this.lastAccessMillis = now;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.springboot.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Bucket4j buckets held in this JVM. The effective limit of a cluster is the configured
+ * limit times the number of instances.
+ */
+public class LocalBucketStore implements BucketStore {
+
+    private final Map<RateLimitProperties.Policy, PolicyBuckets> policies = new IdentityHashMap<>();
+
+    public LocalBucketStore(RateLimitProperties properties) {
+        long idleMillis = properties.effectiveIdleTimeout().toMillis();
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            policies.put(policy, new PolicyBuckets(policy, properties.getMaxKeys(), idleMillis));
+        }
+    }
+
+    @Override
+    public ConsumptionProbe tryConsume(RateLimitProperties.Policy policy, String key) {
+        PolicyBuckets buckets = policies.get(policy);
+        return buckets.table.get(key, System.currentTimeMillis(), buckets::newBucket).tryConsumeAndReturnRemaining(1);
+    }
+
+    @Override
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (PolicyBuckets buckets : policies.values()) {
+            buckets.table.removeIdle(now);
+        }
+    }
+
+    @Override
+    public long trackedKeys() {
+        return policies.values().stream().mapToLong(buckets -> buckets.table.size()).sum();
+    }
+
+    private static final class PolicyBuckets {
+
+        private final Bandwidth limit;
+        private final KeyTable<Bucket> table;
+
+        private PolicyBuckets(RateLimitProperties.Policy policy, long maxKeys, long idleMillis) {
+            this.limit = Bandwidth.classic(policy.getCapacity(), Refill.intervally(policy.getCapacity(), policy.getPeriod()));
+            this.table = new KeyTable<>(maxKeys, idleMillis);
+        }
+
+        private Bucket newBucket(String key) {
+            return Bucket.builder().addLimit(limit).build();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.springboot.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Settings of {@link RateLimitingFilter}, bound from {@code rate-limit.*}.
+ * Policies are matched in order and the first one matching the request path and
+ * method applies; requests matching no policy are not limited.
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private Store store = Store.LOCAL;
+
+    private KeyStrategy keyStrategy = KeyStrategy.IP;
+
+    /** Header holding the client's API key when {@link KeyStrategy#API_KEY} is used. */
+    private String apiKeyHeader = "X-API-Key";
+
+    /** Most client keys tracked per policy; buckets beyond this are evicted. */
+    private long maxKeys = 200_000;
+
+    /** Buckets untouched for this long are dropped. Never shorter than the longest policy period. */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    private List<Policy> policies = new ArrayList<>(List.of(new Policy()));
+
+    private Jdbc jdbc = new Jdbc();
+
+    /**
+     * The idle timeout, raised to the longest policy period: a bucket dropped before
+     * it refills would hand out a fresh allowance.
+     */
+    public Duration effectiveIdleTimeout() {
+        Duration timeout = idleTimeout;
+        for (Policy policy : policies) {
+            if (policy.getPeriod().compareTo(timeout) > 0) {
+                timeout = policy.getPeriod();
+            }
+        }
+        return timeout;
+    }
+
+    public enum Store {
+        /** Buckets in this JVM; every instance applies the limit on its own. */
+        LOCAL,
+        /** Buckets in the {@code rate_limit_bucket} table, shared by every instance. */
+        JDBC
+    }
+
+    public enum KeyStrategy {
+        /** The connection's remote address. */
+        IP,
+        /**
+         * The last address of {@code X-Forwarded-For}, the one the proxy in front of the
+         * application appended. Only safe behind exactly one proxy that appends to the header.
+         */
+        FORWARDED_FOR,
+        /** The API key header, falling back to the remote address when it is missing. */
+        API_KEY
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+
+        private String pattern = "/**";
+
+        /** Methods this policy applies to; empty means every method. */
+        private Set<HttpMethod> methods = new LinkedHashSet<>();
+
+        private long capacity = 5;
+
+        private Duration period = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Jdbc {
+
+        /** Most tokens an instance takes from the table at once; never more than half of what is left. */
+        private long reservationSize = 10;
+
+        /** A table round trip slower than this switches to local buckets for {@link #fallbackPeriod}. */
+        private Duration slowThreshold = Duration.ofMillis(50);
+
+        private Duration fallbackPeriod = Duration.ofSeconds(30);
+    }
+}
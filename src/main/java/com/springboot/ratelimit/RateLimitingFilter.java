@@ -1,41 +1,182 @@
 package com.springboot.ratelimit;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Bucket4j;
-import io.github.bucket4j.Refill;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.respone.ApiResponse;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.stereotype.Component;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-@Component
+/**
+ * Token bucket rate limiter. The first configured policy matching a request decides its
+ * limit, and the {@link BucketStore} keeps one bucket per policy and client key. A
+ * background sweeper lets the store drop buckets that have gone idle.
+ * <p>
+ * Rejections are the hot path during a flood, so their JSON body is encoded once up front
+ * and every rejection is counted in {@code rate.limit.rejections}, tagged by policy pattern.
+ */
 public class RateLimitingFilter implements Filter {
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
 
-    private Bucket createNewBucket() {
-        return Bucket4j.builder()
-                .addLimit(Bandwidth.classic(5, Refill.intervally(5, Duration.ofMinutes(1))))
-                .build();
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RETRY_AFTER_HEADER = "Retry-After";
+    static final String REJECTION_MESSAGE = "Too many requests - Rate limit exceeded";
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final RateLimitProperties properties;
+    private final BucketStore store;
+    private final List<Route> routes;
+    private final ScheduledExecutorService sweeper;
+    private final byte[] rejectionBody;
+
+    public RateLimitingFilter(RateLimitProperties properties, BucketStore store, ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.store = store;
+        this.routes = properties.getPolicies().stream().map(policy -> new Route(policy, meterRegistry)).toList();
+        try {
+            this.rejectionBody = objectMapper.writeValueAsBytes(new ApiResponse<>(false, REJECTION_MESSAGE, null));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not encode the rate limit rejection body", ex);
+        }
+
+        long sweepMillis = Math.min(Math.max(properties.effectiveIdleTimeout().toMillis() / 10, 1_000), 60_000);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(store::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
     }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
 
         HttpServletRequest httpReq = (HttpServletRequest) request;
         HttpServletResponse httpRes = (HttpServletResponse) response;
 
-        String ip = httpReq.getRemoteAddr(); // Or userId/token for user-specific limits
-        Bucket bucket = buckets.computeIfAbsent(ip, k -> createNewBucket());
-        if (bucket.tryConsume(1)) {
+        Route route = properties.isEnabled() ? findRoute(httpReq) : null;
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ConsumptionProbe probe = store.tryConsume(route.policy, resolveKey(httpReq));
+        httpRes.setHeader(REMAINING_HEADER, Long.toString(probe.getRemainingTokens()));
+        if (probe.isConsumed()) {
             chain.doFilter(request, response);
         } else {
-            httpRes.setStatus(429);
-            httpRes.getWriter().write("Too many requests - Rate limit exceeded");
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + 999_999_999L));
+            httpRes.setHeader(RETRY_AFTER_HEADER, Long.toString(retryAfterSeconds));
+            reject(httpRes, route);
+        }
+    }
+
+    private void reject(HttpServletResponse response, Route route) throws IOException {
+        route.rejections.increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rejectionBody.length);
+        response.getOutputStream().write(rejectionBody);
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    private Route findRoute(HttpServletRequest request) {
+        String path = null;
+        for (Route route : routes) {
+            if (!route.appliesTo(request.getMethod())) {
+                continue;
+            }
+            if (path == null) {
+                path = request.getRequestURI().substring(request.getContextPath().length());
+            }
+            if (route.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private String resolveKey(HttpServletRequest request) {
+        switch (properties.getKeyStrategy()) {
+            case FORWARDED_FOR -> {
+                String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+                // the last hop is the one our proxy appended; everything before it is up to the client
+                if (forwardedFor != null && !forwardedFor.isBlank()) {
+                    String lastHop = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+                    if (!lastHop.isEmpty()) {
+                        return lastHop;
+                    }
+                }
+            }
+            case API_KEY -> {
+                String apiKey = request.getHeader(properties.getApiKeyHeader());
+                if (apiKey != null && !apiKey.isBlank()) {
+                    return "key:" + apiKey;
+                }
+            }
+            default -> {
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static final class Route {
+
+        private final RateLimitProperties.Policy policy;
+        private final PathPattern pattern;
+        // "/prefix/**" patterns are matched with startsWith instead of parsing the path
+        private final String prefix;
+        private final Set<HttpMethod> methods;
+        private final Counter rejections;
+
+        private Route(RateLimitProperties.Policy policy, MeterRegistry meterRegistry) {
+            this.policy = policy;
+            this.pattern = PathPatternParser.defaultInstance.parse(policy.getPattern());
+            this.prefix = literalPrefixOf(policy.getPattern());
+            this.methods = Set.copyOf(policy.getMethods());
+            this.rejections = Counter.builder("rate.limit.rejections")
+                    .description("Requests rejected by the rate limiter")
+                    .tag("pattern", policy.getPattern())
+                    .tag("methods", methods.isEmpty() ? "ALL" : policy.getMethods().toString())
+                    .register(meterRegistry);
+        }
+
+        private static String literalPrefixOf(String pattern) {
+            if (!pattern.endsWith("/**")) {
+                return null;
+            }
+            String prefix = pattern.substring(0, pattern.length() - 3);
+            return prefix.chars().anyMatch(c -> c == '*' || c == '?' || c == '{') ? null : prefix;
+        }
+
+        private boolean appliesTo(String method) {
+            return methods.isEmpty() || methods.contains(HttpMethod.valueOf(method));
+        }
+
+        private boolean matches(String path) {
+            if (prefix != null) {
+                return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+            }
+            return pattern.matches(PathContainer.parsePath(path));
         }
     }
 }
@@ -0,0 +1,8 @@
+package com.springboot.repository;
+
+import com.springboot.model.StudentArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StudentArchiveRepository extends JpaRepository<StudentArchive, Long> {
+
+}
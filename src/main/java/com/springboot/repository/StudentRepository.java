@@ -1,14 +1,169 @@
 package com.springboot.repository;
 
+import com.springboot.config.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.springboot.model.Gender;
 import com.springboot.model.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
 
+    @Override
+    @Cacheable(cacheNames = CacheConfig.STUDENTS, key = "#p0", unless = "#result == null")
+    Optional<Student> findById(Long studentId);
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.STUDENTS, key = "#result.studentId")
+    <S extends Student> S save(S student);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS, key = "#p0")
+    void deleteById(Long studentId);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS, allEntries = true)
+    void deleteAll();
+
     boolean existsByStudentEmail(String studentEmail);
 
-    List<Student> findByStudentGenderIgnoreCase(String gender);
+    Slice<Student> findByGender(Gender gender, Pageable pageable);
+
+    @Query("select s.gender from Student s where s.studentId = :studentId")
+    Optional<Gender> findGenderById(Long studentId);
+
+    /**
+     * Number of students of each gender, read from the gender index.
+     */
+    @Query("select s.gender as gender, count(s) as students from Student s where s.gender is not null group by s.gender")
+    List<GenderCount> countByGender();
+
+    List<Student> findByEmailDomain(String emailDomain);
+
+    List<Student> findByOrderByStudentNameKeyAscStudentIdAsc(Limit limit);
+
+    // the leading >= gives the index a start key; with only the OR it is read from the beginning
+    @Query("select s from Student s where s.studentNameKey >= :nameKey " +
+            "and (s.studentNameKey > :nameKey or s.studentId > :studentId) " +
+            "order by s.studentNameKey asc, s.studentId asc")
+    List<Student> findByNameKeyAfter(String nameKey, Long studentId, Limit limit);
+
+    boolean existsByStudentNameKey(String studentNameKey);
+
+    @Query("select s.studentEmail from Student s where s.studentEmail in :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * Read-only cursor over every student in id order; rows are fetched from the
+     * driver in batches rather than materialized up front. Must be consumed
+     * inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select s from Student s order by s.studentId")
+    Stream<Student> streamAll();
+
+    @Query("select s.studentName from Student s")
+    Stream<String> streamAllNames();
+
+    /**
+     * Overwrites the details of one student with a single UPDATE, without loading it first,
+     * if its gender is still {@code expectedGender} and, unless {@code expectedVersion} is null,
+     * its version is still that one. Returns 0 when there is no student with the id or it does
+     * not match.
+     */
+    @Transactional
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS, key = "#p0")
+    @Query("update Student s set s.studentName = :studentName, s.studentEmail = :studentEmail, " +
+            "s.studentGender = :studentGender, s.emailDomain = :emailDomain, s.studentNameKey = :studentNameKey, " +
+            "s.gender = :gender, s.version = s.version + 1, s.updatedAt = instant " +
+            "where s.studentId = :studentId and s.gender = :expectedGender " +
+            "and (:expectedVersion is null or s.version = :expectedVersion)")
+    int updateDetails(Long studentId, String studentName, String studentEmail, String studentGender,
+                      String emailDomain, String studentNameKey, Gender gender, Gender expectedGender,
+                      Long expectedVersion);
+
+    /**
+     * Changes the email of one student with a single UPDATE if, unless {@code expectedVersion}
+     * is null, its version is still that one. Returns 0 when there is no student with the id
+     * or it does not match.
+     */
+    @Transactional
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS, key = "#p0")
+    @Query("update Student s set s.studentEmail = :studentEmail, s.emailDomain = :emailDomain, " +
+            "s.version = s.version + 1, s.updatedAt = instant where s.studentId = :studentId " +
+            "and (:expectedVersion is null or s.version = :expectedVersion)")
+    int updateEmail(Long studentId, String studentEmail, String emailDomain, Long expectedVersion);
+
+    boolean existsByStudentIdAndVersion(Long studentId, long version);
+
+    /**
+     * Deletes one student with a single statement. Returns 0 when there is no student with the id.
+     */
+    @Transactional
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS, key = "#p0")
+    @Query("delete from Student s where s.studentId = :studentId")
+    int deleteStudent(Long studentId);
+
+    @Query("select s.studentId from Student s where s.studentId > :afterId order by s.studentId")
+    List<Long> findIdsAfter(Long afterId, Limit limit);
+
+    /**
+     * Copies the students with ids in {@code (afterId, upToId]} into {@code student_archive}
+     * with a single INSERT ... SELECT; the caller supplies the transaction.
+     */
+    @Modifying
+    @Query("insert into StudentArchive (studentId, studentName, studentEmail, studentGender, archivedAt) " +
+            "select s.studentId, s.studentName, s.studentEmail, s.studentGender, :archivedAt from Student s " +
+            "where s.studentId > :afterId and s.studentId <= :upToId")
+    int archiveIdRange(Long afterId, Long upToId, Instant archivedAt);
+
+    /**
+     * Deletes the students with ids in {@code (afterId, upToId]} that are already archived, with a
+     * single statement that bypasses the persistence context. The caller supplies the transaction
+     * and drops the students cache after it commits; evicting here, before the commit, would let a
+     * concurrent read put a deleted student back into the cache.
+     */
+    @Modifying
+    @Query("delete from Student s where s.studentId in (select a.studentId from StudentArchive a " +
+            "where a.studentId > :afterId and a.studentId <= :upToId)")
+    int deleteArchivedIdRange(Long afterId, Long upToId);
+
+    /**
+     * Deletes the students with ids in {@code (afterId, upToId]} with a single statement in its own
+     * transaction; it bypasses the persistence context, so the whole students cache is dropped.
+     */
+    @Transactional
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.STUDENTS, allEntries = true)
+    @Query("delete from Student s where s.studentId > :afterId and s.studentId <= :upToId")
+    int deleteIdRange(Long afterId, Long upToId);
+
+    interface GenderCount {
+        Gender getGender();
+
+        long getStudents();
+    }
 }
@@ -0,0 +1,23 @@
+package com.springboot.repository;
+
+import com.springboot.model.TableChangeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface TableChangeCounterRepository extends JpaRepository<TableChangeCounter, String> {
+
+    @Query("select c.changes from TableChangeCounter c where c.tableName = :tableName")
+    long findChanges(String tableName);
+
+    /**
+     * Counts one more write to the table. Callers bump it after their write has committed, and
+     * lists read the counter before their rows, so a list can only be tagged with a count older
+     * than its content and is sent again, never one newer that would keep a stale copy current.
+     */
+    @Transactional
+    @Modifying
+    @Query("update TableChangeCounter c set c.changes = c.changes + 1 where c.tableName = :tableName")
+    int increment(String tableName);
+}
@@ -1,10 +1,23 @@
 package com.springboot.repository;
 
+import com.springboot.config.CacheConfig;
 import com.springboot.model.Teacher;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface TeacherRepository extends JpaRepository<Teacher,Long> {
 
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TEACHERS, key = "#p0", unless = "#result == null")
+    Optional<Teacher> findById(Long teacherId);
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.TEACHERS, key = "#result.teacher_Id")
+    <S extends Teacher> S save(S teacher);
+
     boolean existsByTeacherEmail(String teacherEmail);
 
 }
@@ -9,10 +9,10 @@ import lombok.Setter;
 @NoArgsConstructor
 @Setter
 @Getter
-public class ApiResponse {
+public class ApiResponse<T> {
 	
 	private boolean status;
 	private String message;
-	private Object data;
+	private T data;
 
 }
@@ -0,0 +1,48 @@
+package com.springboot.respone;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Progress of one archive-and-purge run, updated by the job thread while it runs.
+ */
+@Getter
+public class ArchiveJobStatus {
+
+	private final String jobId;
+	private final Instant startedAt;
+	private volatile State state = State.RUNNING;
+	private volatile long archived;
+	private volatile long deleted;
+	private volatile int chunks;
+	private volatile Instant finishedAt;
+	private volatile String error;
+
+	public ArchiveJobStatus(String jobId, Instant startedAt) {
+		this.jobId = jobId;
+		this.startedAt = startedAt;
+	}
+
+	public void addChunk(int archivedRows, int deletedRows) {
+		archived += archivedRows;
+		deleted += deletedRows;
+		chunks++;
+	}
+
+	public void complete() {
+		finishedAt = Instant.now();
+		state = State.COMPLETED;
+	}
+
+	public void fail(String message) {
+		error = message;
+		finishedAt = Instant.now();
+		state = State.FAILED;
+	}
+
+	public enum State {
+		RUNNING, COMPLETED, FAILED
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.springboot.respone;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@NoArgsConstructor
+@Setter
+@Getter
+public class BulkCreateResult {
+
+	private int created;
+	private int duplicates;
+	private int invalid;
+	private List<Item> items = new ArrayList<>();
+
+	public void addCreated(int index, Long studentId, String studentEmail) {
+		created++;
+		items.add(new Item(index, Status.CREATED, studentId, studentEmail, null));
+	}
+
+	public void addDuplicate(int index, String studentEmail) {
+		duplicates++;
+		items.add(new Item(index, Status.DUPLICATE, null, studentEmail, "Student with email [" + studentEmail + "] already exists"));
+	}
+
+	public void addInvalid(int index, String studentEmail, String message) {
+		invalid++;
+		items.add(new Item(index, Status.INVALID, null, studentEmail, message));
+	}
+
+	public enum Status {
+		CREATED, DUPLICATE, INVALID
+	}
+
+	@AllArgsConstructor
+	@NoArgsConstructor
+	@Setter
+	@Getter
+	public static class Item {
+
+		private int index;
+		private Status status;
+		private Long studentId;
+		private String studentEmail;
+		private String message;
+
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.springboot.respone;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Body of an error response: {@code status} is always false. Not-found errors for a
+ * single record carry the status as {@code errorCode}, all others as {@code error}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErrorResponse(boolean status, String message, HttpStatus errorCode, HttpStatus error) {
+
+	public static ErrorResponse notFound(String message) {
+		return new ErrorResponse(false, message, HttpStatus.NOT_FOUND, null);
+	}
+
+	public static ErrorResponse of(HttpStatus error, String message) {
+		return new ErrorResponse(false, message, null, error);
+	}
+
+}
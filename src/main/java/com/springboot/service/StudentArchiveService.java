@@ -0,0 +1,167 @@
+package com.springboot.service;
+
+import com.springboot.config.CacheConfig;
+import com.springboot.exception.ArchiveJobNotFoundException;
+import com.springboot.index.GenderCounts;
+import com.springboot.model.TableChangeCounter;
+import com.springboot.repository.StudentRepository;
+import com.springboot.repository.TableChangeCounterRepository;
+import com.springboot.respone.ArchiveJobStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves every student into {@code student_archive} and deletes it, in the background.
+ * Students are processed in id order, {@code student.archive.chunk-size} at a time; each
+ * chunk is one INSERT ... SELECT plus one DELETE in its own short transaction, so row
+ * locks are held for one chunk only and a failure keeps the chunks already done.
+ * Only one run is active at a time.
+ */
+@Service
+public class StudentArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentArchiveService.class);
+    private static final int MAX_TRACKED_JOBS = 20;
+
+    private final StudentRepository studentrepository;
+    private final GenderCounts genderCounts;
+    private final TableChangeCounterRepository changeCounters;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, ArchiveJobStatus> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArchiveJobStatus> eldest) {
+            return size() > MAX_TRACKED_JOBS;
+        }
+    });
+
+    private ArchiveJobStatus runningJob;
+
+    public StudentArchiveService(StudentRepository studentrepository, GenderCounts genderCounts,
+                                 TableChangeCounterRepository changeCounters, CacheManager cacheManager,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${student.archive.chunk-size:1000}") int chunkSize) {
+        this.studentrepository = studentrepository;
+        this.genderCounts = genderCounts;
+        this.changeCounters = changeCounters;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Starts an archive-and-purge run, or returns the one already running.
+     */
+    public synchronized ArchiveJobStatus startArchiveAndPurge() {
+        if (runningJob != null) {
+            logger.info("Archive job {} is already running", runningJob.getJobId());
+            return runningJob;
+        }
+        ArchiveJobStatus job = new ArchiveJobStatus(UUID.randomUUID().toString(), Instant.now());
+        jobs.put(job.getJobId(), job);
+        runningJob = job;
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            job.fail("Archive executor is shut down");
+            runningJob = null;
+            throw ex;
+        }
+        logger.info("Started archive job {}", job.getJobId());
+        return job;
+    }
+
+    public ArchiveJobStatus getJob(String jobId) {
+        ArchiveJobStatus job = jobs.get(jobId);
+        if (job == null) {
+            throw new ArchiveJobNotFoundException("Archive job not found with ID: " + jobId);
+        }
+        return job;
+    }
+
+    void run(ArchiveJobStatus job) {
+        Instant archivedAt = job.getStartedAt();
+        long afterId = 0L;
+        try {
+            while (true) {
+                List<Long> ids = studentrepository.findIdsAfter(afterId, Limit.of(chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long fromId = afterId;
+                long upToId = ids.get(ids.size() - 1);
+                int[] counts = transactionTemplate.execute(status -> new int[]{
+                        studentrepository.archiveIdRange(fromId, upToId, archivedAt),
+                        studentrepository.deleteArchivedIdRange(fromId, upToId)});
+                evictStudents();
+                changeCounters.increment(TableChangeCounter.STUDENTS);
+                job.addChunk(counts[0], counts[1]);
+                logger.debug("Archive job {} moved ids ({}, {}]", job.getJobId(), fromId, upToId);
+                afterId = upToId;
+            }
+            job.complete();
+            logger.info("Archive job {} archived {} and deleted {} students", job.getJobId(), job.getArchived(), job.getDeleted());
+        } catch (RuntimeException ex) {
+            job.fail(ex.getMessage());
+            logger.error("Archive job {} failed after id {}", job.getJobId(), afterId, ex);
+        } catch (Error error) {
+            job.fail(error.toString());
+            logger.error("Archive job {} failed after id {}", job.getJobId(), afterId, error);
+            throw error;
+        } finally {
+            // before anything else can fail, so a new job can always be started
+            finished(job);
+            try {
+                genderCounts.rebuild();
+            } catch (RuntimeException ex) {
+                logger.warn("Could not reload gender counts after archive job {}", job.getJobId(), ex);
+            }
+        }
+    }
+
+    private synchronized void finished(ArchiveJobStatus job) {
+        if (runningJob == job) {
+            runningJob = null;
+        }
+    }
+
+    /**
+     * Drops the cached students once a chunk's delete has committed, so none of them is
+     * served from the cache afterwards.
+     */
+    private void evictStudents() {
+        Cache students = cacheManager.getCache(CacheConfig.STUDENTS);
+        if (students != null) {
+            students.clear();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -2,137 +2,435 @@ package com.springboot.service;
 
 import com.springboot.exception.DuplicateFoundException;
 import com.springboot.exception.NoDataAvailableException;
+import com.springboot.exception.PreconditionFailedException;
 import com.springboot.exception.StudentNotFoundException;
+import com.springboot.index.GenderCounts;
+import com.springboot.index.StudentNameIndex;
+import com.springboot.model.Gender;
 import com.springboot.model.Student;
+import com.springboot.model.TableChangeCounter;
 import com.springboot.repository.StudentRepository;
+import com.springboot.repository.TableChangeCounterRepository;
+import com.springboot.respone.BulkCreateResult;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import java.util.Comparator;
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
 
-import static java.util.Collections.sort;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class StudentService {
     private static final Logger logger = LoggerFactory.getLogger(StudentService.class);
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
 
     @Autowired
     private StudentRepository studentrepository;
 
-    public StudentService(StudentRepository studentrepository) {
+    @Autowired
+    private StudentNameIndex studentNameIndex;
+
+    @Autowired
+    private GenderCounts genderCounts;
+
+    @Autowired
+    private TableChangeCounterRepository changeCounters;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${student.bulk.chunk-size:500}")
+    private int bulkChunkSize = 500;
+
+    @Value("${student.delete.chunk-size:1000}")
+    private int deleteChunkSize = 1000;
+
+    @Value("${student.top.max-size:500}")
+    private int maxTopN = 500;
+
+    public StudentService(StudentRepository studentrepository, StudentNameIndex studentNameIndex,
+                          GenderCounts genderCounts, TableChangeCounterRepository changeCounters,
+                          EntityManager entityManager, Validator validator) {
         this.studentrepository = studentrepository;
+        this.studentNameIndex = studentNameIndex;
+        this.genderCounts = genderCounts;
+        this.changeCounters = changeCounters;
+        this.entityManager = entityManager;
+        this.validator = validator;
     }
 
     public Student createStudent(Student student) {
         logger.info("Attempting to create student with email: {}", student.getStudentEmail());
         validateDuplicateEmail(student.getStudentEmail());
-        Student savedStudent = studentrepository.save(student);
+        Student savedStudent = translateDuplicateEmail(student.getStudentEmail(), () -> studentrepository.save(student));
+        studentNameIndex.add(savedStudent.getStudentName());
+        genderCounts.add(Gender.of(savedStudent.getStudentGender()), 1);
+        studentsChanged();
         logger.info("Student created successfully with ID: {}", savedStudent.getStudentId());
         return savedStudent;
     }
 
+    /**
+     * Creates students read from {@code students} in chunks. Each chunk costs one
+     * query to find emails that are already taken and one batched insert, and
+     * items are consumed lazily so the input can be an unbounded stream.
+     */
+    public BulkCreateResult createStudents(Iterator<Student> students) {
+        logger.info("Bulk creating students in chunks of {}", bulkChunkSize);
+        BulkCreateResult result = new BulkCreateResult();
+        List<BulkItem> chunk = new ArrayList<>(bulkChunkSize);
+        int index = 0;
+        while (students.hasNext()) {
+            Student student = students.next();
+            int position = index++;
+            Set<ConstraintViolation<Student>> violations = validator.validate(student);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                result.addInvalid(position, student.getStudentEmail(), message);
+                continue;
+            }
+            chunk.add(new BulkItem(position, student));
+            if (chunk.size() == bulkChunkSize) {
+                insertChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, result);
+        }
+        logger.info("Bulk create finished: {} created, {} duplicates, {} invalid",
+                result.getCreated(), result.getDuplicates(), result.getInvalid());
+        return result;
+    }
+
+    private void insertChunk(List<BulkItem> chunk, BulkCreateResult result) {
+        Set<String> emails = chunk.stream().map(item -> item.student().getStudentEmail()).collect(Collectors.toSet());
+        Set<String> taken = new HashSet<>();
+        for (String email : studentrepository.findExistingEmails(emails)) {
+            taken.add(email.toLowerCase(Locale.ROOT));
+        }
+        List<BulkItem> accepted = new ArrayList<>(chunk.size());
+        for (BulkItem item : chunk) {
+            String email = item.student().getStudentEmail();
+            if (!taken.add(email.toLowerCase(Locale.ROOT))) {
+                result.addDuplicate(item.index(), email);
+                continue;
+            }
+            item.student().setStudentId(null);
+            accepted.add(item);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        List<Student> saved;
+        try {
+            saved = studentrepository.saveAll(accepted.stream().map(BulkItem::student).toList());
+        } catch (DataIntegrityViolationException ex) {
+            if (!isDuplicateEmail(ex)) {
+                throw ex;
+            }
+            // An email was taken after the lookup above; the chunk was rolled back as a whole.
+            logger.warn("Chunk of {} students clashed with a concurrent insert, retrying one by one", accepted.size());
+            insertOneByOne(accepted, result);
+            return;
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            addCreated(accepted.get(i), saved.get(i), result);
+        }
+        studentsChanged();
+        logger.debug("Inserted chunk of {} students", saved.size());
+    }
+
+    private void insertOneByOne(List<BulkItem> items, BulkCreateResult result) {
+        int created = 0;
+        for (BulkItem item : items) {
+            Student student = item.student();
+            student.setStudentId(null);
+            student.setVersion(0);
+            try {
+                addCreated(item, translateDuplicateEmail(student.getStudentEmail(), () -> studentrepository.save(student)), result);
+                created++;
+            } catch (DuplicateFoundException ex) {
+                result.addDuplicate(item.index(), student.getStudentEmail());
+            }
+        }
+        if (created > 0) {
+            studentsChanged();
+        }
+    }
+
+    private void addCreated(BulkItem item, Student student, BulkCreateResult result) {
+        studentNameIndex.add(student.getStudentName());
+        genderCounts.add(Gender.of(student.getStudentGender()), 1);
+        result.addCreated(item.index(), student.getStudentId(), student.getStudentEmail());
+    }
+
+    /**
+     * Number of writes made to the students table so far; any change to the result of a
+     * student list changes it.
+     */
+    public long getStudentListVersion() {
+        return changeCounters.findChanges(TableChangeCounter.STUDENTS);
+    }
+
     public Student getStudentById(Long studentId) {
         logger.debug("Fetching student with ID: {}", studentId);
         return findStudentOrThrow(studentId);
     }
 
     public List<Student> getAllStudents() {
-        logger.info("Fetching all students");
+        logger.debug("Fetching all students");
         List<Student> students = studentrepository.findAll();
         validateStudentsNotEmpty(students);
         logger.debug("Found {} students", students.size());
         return students;
     }
 
+    public Page<Student> getAllStudents(Pageable pageable) {
+        logger.debug("Fetching students page {} of size {}", pageable.getPageNumber(), pageable.getPageSize());
+        Page<Student> students = studentrepository.findAll(pageable);
+        validateStudentsNotEmpty(students.getContent());
+        logger.debug("Found {} of {} students", students.getNumberOfElements(), students.getTotalElements());
+        return students;
+    }
+
+    /**
+     * Hands every student to {@code consumer} in id order while reading them
+     * through a database cursor. Each row is detached once consumed, so memory
+     * use does not grow with the size of the table.
+     *
+     * @return number of students streamed
+     */
+    @Transactional(readOnly = true)
+    public long streamAllStudents(Consumer<Student> consumer) {
+        logger.debug("Streaming all students");
+        long count = 0;
+        try (Stream<Student> students = studentrepository.streamAll()) {
+            Iterator<Student> iterator = students.iterator();
+            while (iterator.hasNext()) {
+                Student student = iterator.next();
+                consumer.accept(student);
+                entityManager.detach(student);
+                count++;
+            }
+        }
+        logger.debug("Streamed {} students", count);
+        return count;
+    }
+
     public Student updateStudent(Long studentId, Student student) {
+        return updateStudent(studentId, student, null);
+    }
+
+    /**
+     * Overwrites the student with one UPDATE statement; a missing student and a taken
+     * email are both detected from that statement rather than by reading first.
+     * The statement only matches while the stored gender is the one expected, so the
+     * gender counts can be moved: the first attempt expects the gender to be unchanged,
+     * and only when it was changed is the stored one read and the update repeated.
+     * <p>
+     * With an {@code expectedVersion} the statement also only matches that version, and
+     * {@link PreconditionFailedException} is thrown when the stored one is another.
+     */
+    public Student updateStudent(Long studentId, Student student, Long expectedVersion) {
         logger.info("Updating student with ID: {}", studentId);
-        Student existingStudent = findStudentOrThrow(studentId);
-        existingStudent.setStudentName(student.getStudentName());
-        existingStudent.setStudentGender(student.getStudentGender());
-        existingStudent.setStudentEmail(student.getStudentEmail());
+        String name = student.getStudentName();
+        String email = student.getStudentEmail();
+        String studentGender = student.getStudentGender();
+        Gender gender = Gender.of(studentGender);
+        Gender expected = gender;
+        for (int attempt = 1; ; attempt++) {
+            Gender previous = expected;
+            int updated = translateDuplicateEmail(email, () -> studentrepository.updateDetails(studentId, name, email,
+                    studentGender, Student.emailDomainOf(email), Student.nameKeyOf(name), gender, previous,
+                    expectedVersion));
+            if (updated > 0) {
+                break;
+            }
+            Gender stored = studentrepository.findGenderById(studentId).orElseThrow(() -> studentNotFound(studentId));
+            if (expectedVersion != null && !studentrepository.existsByStudentIdAndVersion(studentId, expectedVersion)) {
+                throw versionChanged(studentId);
+            }
+            if (attempt == MAX_UPDATE_ATTEMPTS) {
+                logger.warn("Student with ID {} kept changing during update", studentId);
+                throw new ObjectOptimisticLockingFailureException(Student.class, studentId);
+            }
+            expected = stored;
+        }
+        genderCounts.move(expected, gender);
+        studentsChanged();
         logger.debug("Student details updated for ID: {}", studentId);
-        return studentrepository.save(existingStudent);
+        studentNameIndex.add(name);
+        Student updated = new Student(studentId, name, email, studentGender);
+        if (expectedVersion != null) {
+            updated.setVersion(expectedVersion + 1);
+        }
+        return updated;
     }
 
     public Student deleteStudentById(Long studentId) {
         logger.info("Deleting student with ID: {}", studentId);
         Student student = findStudentOrThrow(studentId);
-        studentrepository.deleteById(studentId);
+        validateStudentUpdated(studentrepository.deleteStudent(studentId), studentId);
+        genderCounts.add(Gender.of(student.getStudentGender()), -1);
+        studentsChanged();
         logger.info("Student with ID {} deleted successfully", studentId);
         return student;
     }
 
-    public void deleteAllStudents() {
-        logger.info("Attempting to delete all students");
-        validateAnyStudentExists();
-        studentrepository.deleteAll();
-        logger.info("All students deleted successfully");
+    /**
+     * Deletes every student, {@code student.delete.chunk-size} ids at a time. Each chunk is one
+     * bulk DELETE in its own transaction, so no entities are loaded and undo stays bounded by
+     * the chunk. Returns the number of students deleted.
+     */
+    public long deleteAllStudents() {
+        logger.info("Deleting all students in chunks of {}", deleteChunkSize);
+        long deleted = 0;
+        long afterId = 0L;
+        List<Long> ids;
+        while (!(ids = studentrepository.findIdsAfter(afterId, Limit.of(deleteChunkSize))).isEmpty()) {
+            long upToId = ids.get(ids.size() - 1);
+            deleted += studentrepository.deleteIdRange(afterId, upToId);
+            studentsChanged();
+            afterId = upToId;
+        }
+        genderCounts.rebuild();
+        if (deleted == 0) {
+            logger.warn("No students found to delete");
+            throw new StudentNotFoundException("No students found to delete.");
+        }
+        logger.info("Deleted {} students", deleted);
+        return deleted;
     }
 
-    public List<Student> getStudentsByGender(String gender) {
-        logger.info("Fetching students by gender: {}", gender);
-        List<Student> students = studentrepository.findByStudentGenderIgnoreCase(gender);
-        validateStudentsNotEmpty(students);
-        return students;
+    /**
+     * Returns one page of the students filed under the gender that {@code gender} maps to,
+     * read in index order. The total comes from {@link GenderCounts} instead of a count query.
+     */
+    public Page<Student> getStudentsByGender(String gender, Pageable pageable) {
+        logger.debug("Fetching students by gender: {}, page {}", gender, pageable.getPageNumber());
+        Gender normalized = Gender.of(gender);
+        Slice<Student> students = studentrepository.findByGender(normalized, pageable);
+        validateStudentsNotEmpty(students.getContent());
+        return new PageImpl<>(students.getContent(), pageable, genderCounts.count(normalized));
+    }
+
+    public Map<Gender, Long> getGenderCounts() {
+        return genderCounts.counts();
     }
+
     public List<Student> getStudentsByEmailDomain(String domain) {
-        logger.info("Fetching students by email domain: {}", domain);
-        List<Student> students = studentrepository.findAll();
-        List<Student> filtered = new java.util.ArrayList<Student>();
-        for (Student s : students) {
-            if (s.getStudentEmail() != null && s.getStudentEmail().toLowerCase().endsWith("@" + domain.toLowerCase())) {
-                filtered.add(s);
-            }
-        }
-        validateStudentsNotEmpty(filtered);
-        return filtered;
+        logger.debug("Fetching students by email domain: {}", domain);
+        List<Student> students = studentrepository.findByEmailDomain(Student.emailDomainOf(domain));
+        validateStudentsNotEmpty(students);
+        return students;
     }
     public List<Student> getTopNStudents(int n) {
-        logger.info("Fetching top {} students sorted by name", n);
-        List<Student> students = studentrepository.findAll();
+        return getTopNStudents(n, null, null);
+    }
 
-        sort(students, new Comparator<Student>() {
-            @Override
-            public int compare(Student s1, Student s2) {
-                return s1.getStudentName().compareToIgnoreCase(s2.getStudentName());
-            }
-        });
-        List<Student> topN = new java.util.ArrayList<Student>();
-        for (int i = 0; i < n && i < students.size(); i++) {
-            topN.add(students.get(i));
+    /**
+     * Returns up to {@code n} students ordered by name (case-insensitive) and id.
+     * Passing the name and id of the last student of a previous page continues
+     * from there (keyset paging) instead of skipping rows with an offset.
+     * {@code n} is capped at {@code student.top.max-size}, like the size of a page.
+     */
+    public List<Student> getTopNStudents(int n, String afterName, Long afterId) {
+        logger.debug("Fetching top {} students sorted by name after [{}, {}]", n, afterName, afterId);
+        int size = Math.min(n, maxTopN);
+        List<Student> topN;
+        if (n <= 0) {
+            topN = List.of();
+        } else if (afterName == null) {
+            topN = studentrepository.findByOrderByStudentNameKeyAscStudentIdAsc(Limit.of(size));
+        } else {
+            topN = studentrepository.findByNameKeyAfter(Student.nameKeyOf(afterName),
+                    afterId == null ? 0L : afterId, Limit.of(size));
         }
         validateStudentsNotEmpty(topN);
         return topN;
     }
     public boolean isStudentExistsWithName(String name) {
-        logger.info("Checking existence of student with name: {}", name);
-        List<Student> students = studentrepository.findAll();
-        for (Student student : students) {
-            if (student.getStudentName() != null && student.getStudentName().equalsIgnoreCase(name)) {
-                return true;
-            }
+        logger.debug("Checking existence of student with name: {}", name);
+        String nameKey = Student.nameKeyOf(name);
+        if (!studentNameIndex.mightContain(nameKey)) {
+            logger.debug("Name filter ruled out student with name: {}", name);
+            return false;
         }
-        return false;
-    }
-    public void archiveAndDeleteAll() {
-        logger.info("Archiving students before deletion");
-        List<Student> students = getAllStudents(); // calls internal method
-        for (Student student : students) {
-            logger.info("Archived student: {}", student);
-        }
-        deleteAllStudents(); // calls existing method
+        return studentrepository.existsByStudentNameKey(nameKey);
     }
     public Student safeUpdateStudentEmail(Long studentId, String newEmail) {
+        return safeUpdateStudentEmail(studentId, newEmail, null);
+    }
+
+    /**
+     * Changes the email with one UPDATE statement, relying on the unique constraint to
+     * reject an email that is already taken, then reads the student back for the response.
+     * With an {@code expectedVersion} only that version is changed, as in
+     * {@link #updateStudent(Long, Student, Long)}.
+     */
+    public Student safeUpdateStudentEmail(Long studentId, String newEmail, Long expectedVersion) {
         logger.info("Updating email for student ID {} to {}", studentId, newEmail);
-        if (studentrepository.existsByStudentEmail(newEmail)) {
-            logger.warn("Duplicate email detected while updating: {}", newEmail);
-            throw new DuplicateFoundException("Email already exists: " + newEmail);
+        int updated = translateDuplicateEmail(newEmail, () -> studentrepository.updateEmail(studentId, newEmail,
+                Student.emailDomainOf(newEmail), expectedVersion));
+        if (updated == 0 && expectedVersion != null && studentrepository.existsById(studentId)) {
+            throw versionChanged(studentId);
+        }
+        validateStudentUpdated(updated, studentId);
+        studentsChanged();
+        return findStudentOrThrow(studentId);
+    }
+
+    private <T> T translateDuplicateEmail(String email, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException ex) {
+            if (isDuplicateEmail(ex)) {
+                logger.warn("Duplicate student email found: {}", email);
+                throw new DuplicateFoundException("Student with email [" + email + "] already exists");
+            }
+            throw ex;
+        }
+    }
+
+    private static boolean isDuplicateEmail(DataIntegrityViolationException ex) {
+        return ex.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Student.EMAIL_UNIQUE_CONSTRAINT);
+    }
+
+    private void validateStudentUpdated(int updated, Long studentId) {
+        if (updated == 0) {
+            throw studentNotFound(studentId);
         }
-        Student student = findStudentOrThrow(studentId);
-        student.setStudentEmail(newEmail);
-        return studentrepository.save(student);
     }
 
     private void validateDuplicateEmail(String email) {
@@ -142,12 +440,26 @@ public class StudentService {
         }
     }
 
+    /**
+     * The returned instance may be shared through the students cache, so callers
+     * build a new {@link Student} to save instead of modifying it.
+     */
     private Student findStudentOrThrow(Long studentId) {
-        return studentrepository.findById(studentId)
-                .orElseThrow(() -> {
-                    logger.error("Student not found with ID: {}", studentId);
-                    return new StudentNotFoundException("Student not found with ID: " + studentId);
-                });
+        return studentrepository.findById(studentId).orElseThrow(() -> studentNotFound(studentId));
+    }
+
+    private void studentsChanged() {
+        changeCounters.increment(TableChangeCounter.STUDENTS);
+    }
+
+    private PreconditionFailedException versionChanged(Long studentId) {
+        logger.warn("Student with ID {} is not at the version the request expected", studentId);
+        return new PreconditionFailedException("Student with ID " + studentId + " was changed by another request");
+    }
+
+    private StudentNotFoundException studentNotFound(Long studentId) {
+        logger.error("Student not found with ID: {}", studentId);
+        return new StudentNotFoundException("Student not found with ID: " + studentId);
     }
     private void validateStudentsNotEmpty(List<Student> students) {
         if (students == null || students.isEmpty()) {
@@ -155,10 +467,6 @@ public class StudentService {
             throw new NoDataAvailableException("No Records are available");
         }
     }
-    private void validateAnyStudentExists() {
-        if (studentrepository.count() == 0) {
-            logger.warn("No students found to delete");
-            throw new StudentNotFoundException("No students found to delete.");
-        }
+    private record BulkItem(int index, Student student) {
     }
 }
@@ -1,6 +1,7 @@
 package com.springboot.service;
 
 import com.springboot.exception.DuplicateFoundException;
+import com.springboot.exception.TeacherNotFoundException;
 import com.springboot.model.Teacher;
 import com.springboot.repository.TeacherRepository;
 import org.slf4j.Logger;
@@ -24,6 +25,15 @@ public class TeacherService {
         return saveTeacher;
     }
 
+    public Teacher getTeacherById(Long teacherId) {
+        logger.debug("Fetching teacher with ID: {}", teacherId);
+        return teacherRepository.findById(teacherId)
+                .orElseThrow(() -> {
+                    logger.error("Teacher not found with ID: {}", teacherId);
+                    return new TeacherNotFoundException("Teacher not found with ID: " + teacherId);
+                });
+    }
+
     private void validateDuplicateEmail(String email) {
         if (teacherRepository.existsByTeacherEmail(email)) {
             logger.warn("Duplicate Teacher email found: {}", email);
@@ -0,0 +1,17 @@
+-- The schema Hibernate created with ddl-auto=update before migrations were introduced.
+-- Databases that already have it are baselined at this version and start at V2.
+create table `student-table` (
+    student_id bigint not null auto_increment,
+    student_email varchar(255) not null,
+    student_gender varchar(255) not null,
+    student_name varchar(255) not null,
+    primary key (student_id)
+);
+
+create table teachers (
+    teacher_id bigint not null auto_increment,
+    teacher_email varchar(255) not null,
+    teacher_gender varchar(255) not null,
+    teacher_name varchar(255) not null,
+    primary key (teacher_id)
+);
@@ -0,0 +1,12 @@
+-- Stored, lower-cased email domain and name, so domain lookups, name existence checks and
+-- the top-N / keyset queries by name use an index instead of scanning every row.
+alter table `student-table` add column email_domain varchar(255);
+alter table `student-table` add column student_name_key varchar(255);
+
+update `student-table` set email_domain = lower(substring(student_email, locate('@', student_email) + 1))
+where email_domain is null and student_email is not null;
+update `student-table` set student_name_key = lower(trim(student_name))
+where student_name_key is null and student_name is not null;
+
+create index idx_student_email_domain on `student-table` (email_domain);
+alter table `student-table` add constraint uk_student_name_key_id unique (student_name_key, student_id);
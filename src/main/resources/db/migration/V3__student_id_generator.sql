@@ -0,0 +1,10 @@
+-- Student ids come from a table generator in blocks of 50 (Student.ID_ALLOCATION_SIZE) so
+-- inserts can be batched. Start past every id the old auto_increment column handed out.
+create table student_id_generator (
+    sequence_name varchar(255) not null,
+    next_val bigint,
+    primary key (sequence_name)
+);
+
+insert into student_id_generator (sequence_name, next_val)
+select 'student_id', coalesce(max(student_id), 0) + 50 from `student-table`;
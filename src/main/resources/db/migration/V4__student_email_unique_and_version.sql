@@ -0,0 +1,3 @@
+-- DuplicateStudentEmailCheck stops the migration first if any email is used by more than one student.
+alter table `student-table` add constraint uk_student_email unique (student_email);
+alter table `student-table` add column version bigint not null default 0;
@@ -0,0 +1,8 @@
+create table student_archive (
+    student_id bigint not null,
+    student_name varchar(255),
+    student_email varchar(255),
+    student_gender varchar(255),
+    archived_at datetime(6),
+    primary key (student_id)
+);
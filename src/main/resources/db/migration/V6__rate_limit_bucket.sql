@@ -0,0 +1,7 @@
+-- Shared rate limit buckets for rate-limit.store=JDBC, see JdbcBucketStore
+create table rate_limit_bucket (
+    bucket_key varchar(255) not null,
+    window_start bigint not null,
+    consumed bigint not null,
+    primary key (bucket_key)
+);
@@ -0,0 +1,14 @@
+-- Gender lookups are case-insensitive, and upper(student_gender) cannot be served by an index.
+-- Each student is filed under one of three one-character codes (M, F, O) instead. The index
+-- leads with the code and ends with the id, so a page of students of one gender in id order
+-- is read straight from the index.
+alter table `student-table` add column gender char(1);
+update `student-table` set gender = case lower(trim(student_gender))
+        when 'male' then 'M' when 'm' then 'M'
+        when 'female' then 'F' when 'f' then 'F'
+        else 'O' end
+    where student_gender is not null and trim(student_gender) <> '';
+create index idx_student_gender on `student-table` (gender, student_id);
+
+-- Duplicate check on every createTeacher
+create index idx_teacher_email on teachers (teacher_email);
@@ -0,0 +1,13 @@
+-- Versions and update times behind the ETag and Last-Modified headers. Rows written before
+-- this have no update time and are served without Last-Modified until they next change.
+alter table `student-table` add column updated_at datetime(6);
+alter table teachers add column version bigint not null default 0;
+alter table teachers add column updated_at datetime(6);
+
+-- One row per table, bumped after every write to it; the ETag of a list of its rows
+create table table_change_counter (
+    table_name varchar(64) not null,
+    changes bigint not null,
+    primary key (table_name)
+);
+insert into table_change_counter (table_name, changes) values ('student-table', 0);
@@ -0,0 +1,109 @@
+package com.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline in the same format and exits
+ * with status 1 when a benchmark got worse by more than the tolerance: a lower score in
+ * throughput mode, a higher one in the time based modes. Runs after the benchmarks in the
+ * benchmarks profile:
+ * <pre>
+ * mvn -Pbenchmarks verify -Djmh.baseline=path/to/baseline.json -Djmh.tolerance=10
+ * </pre>
+ * Without a baseline file the results are only reported; copy {@code target/jmh-result.json}
+ * to the baseline path to create one.
+ */
+public class BenchmarkBaseline {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BenchmarkBaseline <result.json> <baseline.json> <tolerance percent>");
+            System.exit(2);
+        }
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double tolerancePercent = Double.parseDouble(args[2]);
+        if (!Files.exists(baseline)) {
+            System.out.println("No benchmark baseline at " + baseline + "; copy " + result + " there to create one");
+            return;
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Comparison> comparisons = compare(scores(objectMapper.readTree(result.toFile())),
+                scores(objectMapper.readTree(baseline.toFile())), tolerancePercent);
+        boolean regressed = false;
+        for (Comparison comparison : comparisons) {
+            System.out.println(comparison);
+            regressed |= comparison.regressed();
+        }
+        if (regressed) {
+            System.err.println("Benchmarks regressed by more than " + tolerancePercent + "% against " + baseline);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Scores of a JMH result file by benchmark name, mode and parameters.
+     */
+    static Map<String, Score> scores(JsonNode results) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            String mode = run.path("mode").asText();
+            String key = run.path("benchmark").asText() + " " + mode + (params.isEmpty() ? "" : " " + params);
+            JsonNode metric = run.path("primaryMetric");
+            scores.put(key, new Score(mode, metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    static List<Comparison> compare(Map<String, Score> current, Map<String, Score> baseline, double tolerancePercent) {
+        List<Comparison> comparisons = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score now = entry.getValue();
+            if (before == null || before.value() == 0 || !before.unit().equals(now.unit())) {
+                comparisons.add(new Comparison(entry.getKey(), before, now, Double.NaN, false));
+                continue;
+            }
+            double changePercent = (now.value() - before.value()) / before.value() * 100;
+            double worsePercent = now.higherIsBetter() ? -changePercent : changePercent;
+            comparisons.add(new Comparison(entry.getKey(), before, now, changePercent, worsePercent > tolerancePercent));
+        }
+        return comparisons;
+    }
+
+    record Score(String mode, double value, String unit) {
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    record Comparison(String benchmark, Score baseline, Score current, double changePercent, boolean regressed) {
+
+        @Override
+        public String toString() {
+            if (baseline == null || Double.isNaN(changePercent)) {
+                return String.format("NEW        %s: %.3f %s", benchmark, current.value(), current.unit());
+            }
+            return String.format("%-10s %s: %.3f -> %.3f %s (%+.1f%%)", regressed ? "REGRESSED" : "OK", benchmark,
+                    baseline.value(), current.value(), current.unit(), changePercent);
+        }
+    }
+}
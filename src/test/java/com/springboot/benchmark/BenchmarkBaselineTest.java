@@ -0,0 +1,42 @@
+package com.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BenchmarkBaselineTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void slowerTimeAndLowerThroughputBeyondToleranceRegress() throws Exception {
+        Map<String, BenchmarkBaseline.Score> baseline = BenchmarkBaseline.scores(objectMapper.readTree("""
+                [{"benchmark": "a.Bench.get", "mode": "avgt", "params": {"rows": "10000"},
+                  "primaryMetric": {"score": 100.0, "scoreUnit": "us/op"}},
+                 {"benchmark": "a.Bench.get", "mode": "avgt", "params": {"rows": "100000"},
+                  "primaryMetric": {"score": 100.0, "scoreUnit": "us/op"}},
+                 {"benchmark": "a.Bench.rate", "mode": "thrpt",
+                  "primaryMetric": {"score": 50.0, "scoreUnit": "ops/ms"}}]
+                """));
+        Map<String, BenchmarkBaseline.Score> current = BenchmarkBaseline.scores(objectMapper.readTree("""
+                [{"benchmark": "a.Bench.get", "mode": "avgt", "params": {"rows": "10000"},
+                  "primaryMetric": {"score": 105.0, "scoreUnit": "us/op"}},
+                 {"benchmark": "a.Bench.get", "mode": "avgt", "params": {"rows": "100000"},
+                  "primaryMetric": {"score": 120.0, "scoreUnit": "us/op"}},
+                 {"benchmark": "a.Bench.rate", "mode": "thrpt",
+                  "primaryMetric": {"score": 40.0, "scoreUnit": "ops/ms"}},
+                 {"benchmark": "a.Bench.added", "mode": "avgt",
+                  "primaryMetric": {"score": 1.0, "scoreUnit": "us/op"}}]
+                """));
+
+        List<BenchmarkBaseline.Comparison> comparisons = BenchmarkBaseline.compare(current, baseline, 10);
+
+        assertThat(comparisons).extracting(BenchmarkBaseline.Comparison::regressed)
+                .containsExactly(false, true, true, false);
+        assertThat(comparisons.get(3).toString()).startsWith("NEW");
+    }
+}
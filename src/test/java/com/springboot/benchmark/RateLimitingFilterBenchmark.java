@@ -0,0 +1,118 @@
+package com.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.ratelimit.LocalBucketStore;
+import com.springboot.ratelimit.RateLimitProperties;
+import com.springboot.ratelimit.RateLimitingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link RateLimitingFilter} per request when 100k distinct clients are tracked,
+ * against a bare filter chain call. The contended variants share one filter between four
+ * threads, either spread over all clients or all hitting the same client's bucket.
+ * Run with {@code mvn -Pbenchmarks verify}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitingFilterBenchmark {
+
+    @Param("100000")
+    private int distinctKeys;
+
+    private final FilterChain chain = (request, response) -> { };
+    private RateLimitingFilter filter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() throws Exception {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setPattern("/api/student/**");
+        policy.setCapacity(1_000_000_000L);
+        policy.setPeriod(Duration.ofMinutes(1));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(policy));
+        filter = new RateLimitingFilter(properties, new LocalBucketStore(properties), new ObjectMapper(),
+                new SimpleMeterRegistry());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        keys = new String[distinctKeys];
+        for (int i = 0; i < distinctKeys; i++) {
+            keys[i] = "10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+            request.setRemoteAddr(keys[i]);
+            filter.doFilter(request, response, chain);
+        }
+    }
+
+    /**
+     * Request and response of one benchmark thread; each thread walks the keys from its
+     * own starting point.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student/1");
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private String[] keys;
+        private int next;
+
+        @Setup
+        public void setUp(RateLimitingFilterBenchmark benchmark) {
+            keys = benchmark.keys;
+            next = ThreadLocalRandom.current().nextInt(keys.length);
+        }
+
+        private String nextKey() {
+            String key = keys[next];
+            next = next + 1 == keys.length ? 0 : next + 1;
+            return key;
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse baseline(Client client) throws Exception {
+        client.request.setRemoteAddr(client.nextKey());
+        chain.doFilter(client.request, client.response);
+        return client.response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse rateLimited(Client client) throws Exception {
+        client.request.setRemoteAddr(client.nextKey());
+        filter.doFilter(client.request, client.response, chain);
+        return client.response;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MockHttpServletResponse rateLimitedContended(Client client) throws Exception {
+        client.request.setRemoteAddr(client.nextKey());
+        filter.doFilter(client.request, client.response, chain);
+        return client.response;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MockHttpServletResponse rateLimitedSameKey(Client client) throws Exception {
+        client.request.setRemoteAddr(keys[0]);
+        filter.doFilter(client.request, client.response, chain);
+        return client.response;
+    }
+
+    @TearDown
+    public void tearDown() {
+        filter.destroy();
+    }
+}
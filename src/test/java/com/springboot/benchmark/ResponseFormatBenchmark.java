@@ -0,0 +1,99 @@
+package com.springboot.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.springboot.model.Student;
+import com.springboot.respone.ApiResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode time of a student list response in each format the API negotiates (JSON, Smile
+ * and CBOR), written as is and through gzip as {@code server.compression} would. The
+ * payload size of each combination is printed when the trial starts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseFormatBenchmark {
+
+    @Param({"20", "500"})
+    private int size;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"none", "gzip"})
+    private String compression;
+
+    private final CountingOutputStream out = new CountingOutputStream();
+    private ObjectWriter writer;
+    private ApiResponse<List<Student>> response;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        writer = Jackson2ObjectMapperBuilder.json().factory(factory).modulesToInstall(new BlackbirdModule())
+                .build().writer();
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            students.add(new Student((long) i, "Student " + i, "student" + i + "@gmail.com", i % 2 == 0 ? "Male" : "Female"));
+        }
+        response = new ApiResponse<>(true, "Students fetched", students);
+
+        encode();
+        System.out.printf("%n%s, %s, %d students: %d bytes%n", format, compression, size, out.count);
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        out.count = 0;
+        if (compression.equals("gzip")) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                writer.writeValue(gzip, response);
+            }
+        } else {
+            writer.writeValue(out, response);
+        }
+        return out.count;
+    }
+
+    /**
+     * Stands in for the response stream, keeping only the number of bytes written.
+     */
+    static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
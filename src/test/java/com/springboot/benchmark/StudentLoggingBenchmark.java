@@ -0,0 +1,62 @@
+package com.springboot.benchmark;
+
+import com.springboot.SpringBootRestApi03Application;
+import com.springboot.loadtest.EmbeddedStudentApp;
+import com.springboot.model.Student;
+import com.springboot.repository.StudentRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Throughput of {@code GET /api/student/{id}} with DEBUG logging for {@code com.springboot},
+ * writing through the async appenders (default) and on the request thread (sync-logging).
+ * The application runs on an in-memory H2 database with the rate limiter off, and the
+ * student is served from the cache, so logging is most of what differs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StudentLoggingBenchmark {
+
+    @Param({"default", "sync-logging"})
+    private String profile;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String uri;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedStudentApp.start(
+                new SpringApplicationBuilder(SpringBootRestApi03Application.class).profiles(profile), "benchmark",
+                "--logging.level.com.springboot=DEBUG",
+                "--logging.file.path=target/benchmark-logs");
+        Student student = context.getBean(StudentRepository.class)
+                .save(new Student(null, "Benchmark Student", "benchmark@example.com", "Female"));
+        uri = "/api/student/" + student.getStudentId();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getStudentById() throws Exception {
+        return mockMvc.perform(get(uri)).andReturn();
+    }
+}
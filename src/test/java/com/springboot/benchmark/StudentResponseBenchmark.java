@@ -0,0 +1,96 @@
+package com.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.springboot.hateoas.StudentModelAssembler;
+import com.springboot.model.Student;
+import com.springboot.model.StudentModel;
+import com.springboot.respone.ApiResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of turning students into a response body: {@link StudentModelAssembler} building
+ * the models with their links inside a request, and Jackson writing an {@link ApiResponse}
+ * that wraps a list of them, for lists of 1, 20 and 500 students, with plain reflective bean
+ * serializers and with the Blackbird module the application registers. Run with
+ * {@code -prof gc} to see the bytes allocated per response ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StudentResponseBenchmark {
+
+    @Param({"1", "20", "500"})
+    private int size;
+
+    @Param({"reflection", "blackbird"})
+    private String serializers;
+
+    private final StudentModelAssembler assembler = new StudentModelAssembler();
+    private ObjectWriter writer;
+    private List<Student> students;
+    private ApiResponse<List<StudentModel>> response;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (serializers.equals("blackbird")) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        writer = builder.build().writer();
+        students = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            students.add(new Student((long) i, "Student " + i, "student" + i + "@gmail.com", i % 2 == 0 ? "Male" : "Female"));
+        }
+        response = new ApiResponse<>(true, "Students fetched",
+                List.copyOf(inRequest(() -> assembler.toCollectionModel(students)).getContent()));
+    }
+
+    private static <T> T inRequest(Supplier<T> work) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(
+                new MockHttpServletRequest("GET", "/api/student")));
+        try {
+            return work.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public StudentModel toModel() {
+        return inRequest(() -> assembler.toModel(students.get(0)));
+    }
+
+    @Benchmark
+    public CollectionModel<StudentModel> toCollectionModel() {
+        return inRequest(() -> assembler.toCollectionModel(students));
+    }
+
+    @Benchmark
+    public byte[] serializeApiResponse() throws Exception {
+        return writer.writeValueAsBytes(response);
+    }
+
+    /**
+     * The message converter's path: the generator writes into the response stream,
+     * so no byte array holding the whole body is allocated.
+     */
+    @Benchmark
+    public void writeApiResponse() throws Exception {
+        writer.writeValue(OutputStream.nullOutputStream(), response);
+    }
+}
@@ -0,0 +1,94 @@
+package com.springboot.benchmark;
+
+import com.springboot.index.GenderCounts;
+import com.springboot.loadtest.EmbeddedStudentApp;
+import com.springboot.loadtest.StudentSeed;
+import com.springboot.model.Student;
+import com.springboot.service.StudentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the {@link StudentService} queries against an in-memory H2 database seeded
+ * with 10k, 100k and 1M students, through the full Spring context (repositories, caches,
+ * transactions). Each call picks a random student, domain or page, so reads by id only
+ * hit the cache once the table is smaller than the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class StudentServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private StudentService studentService;
+    private Pageable firstPage;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedStudentApp.start("service-benchmark",
+                "--student.gender-counts.refresh-interval=0",
+                "--logging.level.com.springboot=WARN",
+                "--logging.file.path=target/benchmark-logs");
+        StudentSeed.students(context.getBean(JdbcTemplate.class), rows);
+        context.getBean(GenderCounts.class).rebuild();
+        studentService = context.getBean(StudentService.class);
+        firstPage = PageRequest.of(0, 20, Sort.by("studentId"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    @Benchmark
+    public Student getStudentById() {
+        return studentService.getStudentById(randomId());
+    }
+
+    @Benchmark
+    public Page<Student> getAllStudentsFirstPage() {
+        return studentService.getAllStudents(firstPage);
+    }
+
+    @Benchmark
+    public Page<Student> getStudentsByGenderPage() {
+        int page = ThreadLocalRandom.current().nextInt(50);
+        return studentService.getStudentsByGender("female", PageRequest.of(page, 20, Sort.by("studentId")));
+    }
+
+    @Benchmark
+    public List<Student> getStudentsByEmailDomain() {
+        return studentService.getStudentsByEmailDomain(StudentSeed.domain(ThreadLocalRandom.current().nextInt(StudentSeed.EMAIL_DOMAINS)));
+    }
+
+    @Benchmark
+    public List<Student> getTopNStudentsAfter() {
+        // from the first half of the names, so there is always a next page
+        long afterId = ThreadLocalRandom.current().nextLong(1, rows / 2);
+        return studentService.getTopNStudents(20, "Student " + afterId, afterId);
+    }
+
+    @Benchmark
+    public boolean isStudentExistsWithName() {
+        return studentService.isStudentExistsWithName("Student " + randomId());
+    }
+}
@@ -0,0 +1,67 @@
+package com.springboot.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionThresholdFilterTest {
+
+    private final CompressionThresholdFilter filter = new CompressionThresholdFilter(16);
+
+    private static MockHttpServletRequest gzipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/student/exists/Raj");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        return request;
+    }
+
+    private static FilterChain writing(String body) {
+        return (request, response) -> {
+            response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+            response.getOutputStream().flush();
+        };
+    }
+
+    @Test
+    void bodyWithinThresholdIsHeldBackAndSentWithItsLength() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(gzipRequest(), response, (request, res) -> {
+            writing("{\"data\":").doFilter(request, res);
+            assertFalse(res.isCommitted());
+            writing("true}").doFilter(request, res);
+        });
+
+        assertEquals("{\"data\":true}", response.getContentAsString());
+        assertEquals(13, response.getContentLength());
+    }
+
+    @Test
+    void bodyPastThresholdIsStreamedWithoutLength() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(gzipRequest(), response, writing("{\"data\":[1,2,3,4,5,6,7,8,9]}"));
+
+        assertEquals("{\"data\":[1,2,3,4,5,6,7,8,9]}", response.getContentAsString());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @Test
+    void writerOutputIsHeldBackToo() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding("UTF-8");
+        filter.doFilter(gzipRequest(), response, (request, res) -> res.getWriter().write("ok"));
+
+        assertEquals("ok", response.getContentAsString());
+        assertEquals(2, response.getContentLength());
+    }
+
+    @Test
+    void requestsThatDoNotAcceptGzipAreNotWrapped() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/student/1"), response, (request, res) -> assertSame(response, res));
+    }
+}
@@ -0,0 +1,51 @@
+package com.springboot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolCheckTest {
+
+    @Test
+    void poolThatFitsThePlatformThreadsPasses() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(20);
+
+        assertThat(new ConnectionPoolCheck(dataSource, new MockEnvironment()).problems()).isEmpty();
+    }
+
+    @Test
+    void poolLargerThanTheRequestThreadsIsReported() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(50);
+        MockEnvironment environment = new MockEnvironment().withProperty("server.tomcat.threads.max", "40");
+
+        assertThat(new ConnectionPoolCheck(dataSource, environment).problems())
+                .singleElement().asString().contains("allows 50 connections but at most 40 request threads");
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void virtualThreadsBeforeJava21AreReported() {
+        HikariDataSource dataSource = new HikariDataSource();
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        assertThat(new ConnectionPoolCheck(dataSource, environment).problems())
+                .singleElement().asString().contains("needs Java 21");
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void longConnectionTimeoutWithVirtualThreadsIsReported() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setConnectionTimeout(30_000);
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        assertThat(new ConnectionPoolCheck(dataSource, environment).problems())
+                .singleElement().asString().contains("connection-timeout is 30000ms");
+    }
+}
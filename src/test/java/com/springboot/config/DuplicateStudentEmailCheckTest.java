@@ -0,0 +1,46 @@
+package com.springboot.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DuplicateStudentEmailCheckTest {
+
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:email-migration-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    private Flyway flyway(String target) {
+        return Flyway.configure().dataSource(dataSource).target(target).callbacks(new DuplicateStudentEmailCheck()).load();
+    }
+
+    private void insertStudent(String name, String email) {
+        jdbcTemplate.update("insert into `student-table` (student_name, student_email, student_gender) values (?, ?, 'Male')",
+                name, email);
+    }
+
+    @Test
+    void stopsBeforeTheUniqueConstraintAndNamesDuplicateEmails() {
+        flyway("3").migrate();
+        insertStudent("Raj", "raj@gmail.com");
+        insertStudent("Raj K", "RAJ@gmail.com");
+        insertStudent("Amit", "amit@gmail.com");
+
+        assertThatThrownBy(() -> flyway("4").migrate())
+                .isInstanceOf(FlywayException.class)
+                .rootCause()
+                .hasMessageContaining("raj@gmail.com (2 students)")
+                .hasMessageNotContaining("amit@gmail.com");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from `student-table`", Integer.class)).isEqualTo(3);
+
+        jdbcTemplate.update("update `student-table` set student_email = 'raj.k@gmail.com' where student_name = 'Raj K'");
+        assertThat(flyway("4").migrate().migrationsExecuted).isEqualTo(1);
+        // with the constraint in place the table is no longer scanned
+        assertThat(flyway("latest").migrate().success).isTrue();
+    }
+}
@@ -1,23 +1,57 @@
 package com.springboot.controller;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.springboot.config.MessageConverterConfig;
+import com.springboot.exception.ArchiveJobNotFoundException;
+import com.springboot.exception.PreconditionFailedException;
+import com.springboot.exception.StudentNotFoundException;
+import com.springboot.hateoas.StudentModelAssembler;
+import com.springboot.model.Gender;
 import com.springboot.model.Student;
+import com.springboot.respone.BulkCreateResult;
+import com.springboot.respone.ArchiveJobStatus;
+import com.springboot.service.StudentArchiveService;
 import com.springboot.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(StudentController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import({StudentModelAssembler.class, SimpleMeterRegistry.class, MessageConverterConfig.class})
 public class StudentControllerTest {
 
     @Autowired
@@ -26,9 +60,15 @@ public class StudentControllerTest {
     @MockBean
     private StudentService studentService;
 
+    @MockBean
+    private StudentArchiveService studentArchiveService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Student student;
 
     @BeforeEach
@@ -53,6 +93,42 @@ public class StudentControllerTest {
                 .andExpect(jsonPath("$.data.studentId").value(1));
     }
 
+    @Test
+    void testSaveStudentsFromNdjson() throws Exception {
+        BulkCreateResult result = new BulkCreateResult();
+        result.addCreated(0, 1L, "raj@gmail.com");
+        Mockito.when(studentService.createStudents(any())).thenAnswer(invocation -> {
+            Iterator<Student> students = invocation.getArgument(0);
+            assertEquals("raj@gmail.com", students.next().getStudentEmail());
+            assertEquals("amit@gmail.com", students.next().getStudentEmail());
+            return result;
+        });
+
+        mockMvc.perform(post("/api/student/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(student) + "\n"
+                                + objectMapper.writeValueAsString(new Student(null, "Amit", "amit@gmail.com", "Male"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.created").value(1))
+                .andExpect(jsonPath("$.data.items[0].status").value("CREATED"));
+    }
+
+    @Test
+    void testSaveStudentsFromJsonArray() throws Exception {
+        Mockito.when(studentService.createStudents(any())).thenAnswer(invocation -> {
+            Iterator<Student> students = invocation.getArgument(0);
+            assertEquals("raj@gmail.com", students.next().getStudentEmail());
+            assertFalse(students.hasNext());
+            return new BulkCreateResult();
+        });
+
+        mockMvc.perform(post("/api/student/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(student))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(true));
+    }
+
     @Test
     void testGetStudentById() throws Exception {
         Mockito.when(studentService.getStudentById(1L)).thenReturn(student);
@@ -61,25 +137,186 @@ public class StudentControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(true))
                 .andExpect(jsonPath("$.message").value("Student is present with given Id :1"))
-                .andExpect(jsonPath("$.data.studentId").value(1));
+                .andExpect(jsonPath("$.data.studentId").value(1))
+                .andExpect(jsonPath("$.data.links[0].rel").value("self"))
+                .andExpect(jsonPath("$.data.links[0].href").value("http://localhost/api/student/1"))
+                .andExpect(jsonPath("$.data.links[1].href").value("http://localhost/api/student"))
+                .andExpect(jsonPath("$.data.links[3].rel").value("update"));
+    }
+
+    @Test
+    void testGetStudentByIdAnswersNotModifiedToItsETag() throws Exception {
+        student.setVersion(3);
+        student.setUpdatedAt(Instant.parse("2024-05-01T10:15:30.123Z"));
+        Mockito.when(studentService.getStudentById(1L)).thenReturn(student);
+
+        mockMvc.perform(get("/api/student/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("ETag", "\"3\""))
+                .andExpect(header().string("Last-Modified", "Wed, 01 May 2024 10:15:30 GMT"));
+        mockMvc.perform(get("/api/student/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/student/1").header("If-Modified-Since", "Wed, 01 May 2024 10:15:30 GMT"))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/student/1").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testETagsDependOnTheNegotiatedFormat() throws Exception {
+        student.setVersion(3);
+        Mockito.when(studentService.getStudentById(1L)).thenReturn(student);
+        Mockito.when(studentService.getStudentListVersion()).thenReturn(7L);
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        mockMvc.perform(get("/api/student/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-cbor\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        mockMvc.perform(get("/api/student/1").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/student/1").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        mockMvc.perform(get("/api/student/1").accept(MediaType.APPLICATION_JSON).header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        mockMvc.perform(get("/api/student/top/5").accept(smile).header("If-None-Match", "W/\"7-smile\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        mockMvc.perform(get("/api/student/top/5").accept(smile).header("If-None-Match", "W/\"7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"7-smile\""));
+    }
+
+    @Test
+    void testStudentListAnswersNotModifiedWithoutReadingIt() throws Exception {
+        Mockito.when(studentService.getStudentListVersion()).thenReturn(7L);
+
+        mockMvc.perform(get("/api/student").header("If-None-Match", "W/\"7\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/student/top/5").header("If-None-Match", "W/\"7\""))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(studentService, Mockito.never()).getAllStudents(any(Pageable.class));
+        Mockito.verify(studentService, Mockito.never()).getTopNStudents(Mockito.anyInt(), any(), any());
+    }
+
+    @Test
+    void testRequestsAreTimedByHandlerPattern() throws Exception {
+        Mockito.when(studentService.getStudentById(1L)).thenReturn(student);
+        Mockito.when(studentService.getStudentById(2L)).thenThrow(new StudentNotFoundException("Student not found with ID: 2"));
+
+        mockMvc.perform(get("/api/student/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/student/2")).andExpect(status().isNotFound());
+
+        Timer ok = meterRegistry.get("api.requests")
+                .tags("uri", "/api/student/{studentId}", "method", "GET", "status", "200", "exception", "none")
+                .timer();
+        Timer notFound = meterRegistry.get("api.requests")
+                .tags("uri", "/api/student/{studentId}", "status", "404", "exception", "StudentNotFoundException")
+                .timer();
+        assertEquals(1, ok.count());
+        assertEquals(1, notFound.count());
+    }
+
+    @Test
+    void testGetStudentByIdLinksFollowRequestHost() throws Exception {
+        Mockito.when(studentService.getStudentById(1L)).thenReturn(student);
+
+        mockMvc.perform(get("/api/student/1"))
+                .andExpect(jsonPath("$.data.links[0].href").value("http://localhost/api/student/1"));
+        mockMvc.perform(get("/api/student/1").header("Host", "students.example.com"))
+                .andExpect(jsonPath("$.data.links[0].href").value("http://students.example.com/api/student/1"))
+                .andExpect(jsonPath("$.data.links[1].href").value("http://students.example.com/api/student"));
     }
 
     @Test
     void testGetAllStudents() throws Exception {
-        List<Student> students = Collections.singletonList(student);
-        Mockito.when(studentService.getAllStudents()).thenReturn(students);
+        Page<Student> students = new PageImpl<>(Collections.singletonList(student), PageRequest.of(0, 20), 1);
+        Mockito.when(studentService.getAllStudents(any(Pageable.class))).thenReturn(students);
 
-        mockMvc.perform(get("/api/student"))
+        mockMvc.perform(get("/api/student").param("page", "0").param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(true))
                 .andExpect(jsonPath("$.message").value("Getting all Objects are successfully.."))
-                .andExpect(jsonPath("$.data[0].studentId").value(1));
+                .andExpect(jsonPath("$.data.content[0].studentId").value(1))
+                .andExpect(jsonPath("$.data.page.totalElements").value(1));
+    }
+
+    @Test
+    void testGetAllStudentsAsCborOrSmile() throws Exception {
+        Page<Student> students = new PageImpl<>(Collections.singletonList(student), PageRequest.of(0, 20), 1);
+        Mockito.when(studentService.getAllStudents(any(Pageable.class))).thenReturn(students);
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        byte[] cborBody = mockMvc.perform(get("/api/student").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smileBody = mockMvc.perform(get("/api/student").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        for (JsonNode body : List.of(new ObjectMapper(new CBORFactory()).readTree(cborBody),
+                new ObjectMapper(new SmileFactory()).readTree(smileBody))) {
+            assertEquals("raj@gmail.com", body.at("/data/content/0/studentEmail").asText());
+            assertEquals(1, body.at("/data/page/totalElements").asInt());
+        }
+    }
+
+    @Test
+    void testGetStudentsByGenderPage() throws Exception {
+        Page<Student> students = new PageImpl<>(Collections.singletonList(student), PageRequest.of(1, 1), 2);
+        Mockito.when(studentService.getStudentsByGender(eq("male"), any(Pageable.class))).thenReturn(students);
+
+        mockMvc.perform(get("/api/student/gender/male").param("page", "1").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].studentGender").value("Male"))
+                .andExpect(jsonPath("$.data.content[0].gender").doesNotExist())
+                .andExpect(jsonPath("$.data.page.totalElements").value(2));
+    }
+
+    @Test
+    void testGetGenderCounts() throws Exception {
+        Map<Gender, Long> counts = new EnumMap<>(Gender.class);
+        counts.put(Gender.MALE, 3L);
+        counts.put(Gender.FEMALE, 2L);
+        counts.put(Gender.OTHER, 0L);
+        Mockito.when(studentService.getGenderCounts()).thenReturn(counts);
+
+        mockMvc.perform(get("/api/student/stats/gender"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.MALE").value(3))
+                .andExpect(jsonPath("$.data.FEMALE").value(2))
+                .andExpect(jsonPath("$.data.OTHER").value(0));
+    }
+
+    @Test
+    void testStreamAllStudents() throws Exception {
+        Mockito.when(studentService.streamAllStudents(any())).thenAnswer(invocation -> {
+            Consumer<Student> consumer = invocation.getArgument(0);
+            consumer.accept(student);
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/student").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"studentEmail\":\"raj@gmail.com\"")));
     }
 
     @Test
     void testUpdateStudent() throws Exception {
         student.setStudentName("Updated Name");
-        Mockito.when(studentService.updateStudent(eq(1L), any(Student.class))).thenReturn(student);
+        Mockito.when(studentService.updateStudent(eq(1L), any(Student.class), isNull())).thenReturn(student);
 
         mockMvc.perform(put("/api/student/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -90,6 +327,33 @@ public class StudentControllerTest {
                 .andExpect(jsonPath("$.data.studentName").value("Updated Name"));
     }
 
+    @Test
+    void testUpdateStudentIfMatch() throws Exception {
+        student.setVersion(4);
+        Mockito.when(studentService.updateStudent(eq(1L), any(Student.class), eq(3L))).thenReturn(student);
+        Mockito.when(studentService.updateStudent(eq(1L), any(Student.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException("Student with ID 1 was changed by another request"));
+
+        mockMvc.perform(put("/api/student/1").header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+        mockMvc.perform(put("/api/student/1").header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("PRECONDITION_FAILED"));
+        mockMvc.perform(put("/api/student/1").header("If-Match", "\"3-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/student/1").header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void testDeleteStudentById() throws Exception {
         Mockito.when(studentService.deleteStudentById(1L)).thenReturn(student);
@@ -103,9 +367,44 @@ public class StudentControllerTest {
 
     @Test
     void testDeleteAllStudents() throws Exception {
+        Mockito.when(studentService.deleteAllStudents()).thenReturn(3L);
+
         mockMvc.perform(delete("/api/student/deleteAll"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(true))
-                .andExpect(jsonPath("$.message").value("All students deleted successfully!"));
+                .andExpect(jsonPath("$.message").value("All students deleted successfully!"))
+                .andExpect(jsonPath("$.data").value(3));
+    }
+
+    @Test
+    void testArchiveAndDeleteAllIsAccepted() throws Exception {
+        ArchiveJobStatus job = new ArchiveJobStatus("job-1", Instant.now());
+        Mockito.when(studentArchiveService.startArchiveAndPurge()).thenReturn(job);
+
+        mockMvc.perform(delete("/api/student/archive-delete"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/student/archive-delete/job-1"))
+                .andExpect(jsonPath("$.data.jobId").value("job-1"))
+                .andExpect(jsonPath("$.data.state").value("RUNNING"));
+    }
+
+    @Test
+    void testGetArchiveJob() throws Exception {
+        ArchiveJobStatus job = new ArchiveJobStatus("job-1", Instant.now());
+        job.addChunk(3, 3);
+        job.complete();
+        Mockito.when(studentArchiveService.getJob("job-1")).thenReturn(job);
+        Mockito.when(studentArchiveService.getJob("missing")).thenThrow(new ArchiveJobNotFoundException("Archive job not found with ID: missing"));
+
+        mockMvc.perform(get("/api/student/archive-delete/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.data.archived").value(3));
+        mockMvc.perform(get("/api/student/archive-delete/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(false))
+                .andExpect(jsonPath("$.message").value("Archive job not found with ID: missing"))
+                .andExpect(jsonPath("$.errorCode").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.error").doesNotExist());
     }
 }
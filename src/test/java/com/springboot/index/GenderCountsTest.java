@@ -0,0 +1,70 @@
+package com.springboot.index;
+
+import com.springboot.model.Gender;
+import com.springboot.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GenderCountsTest {
+
+    @Mock
+    private StudentRepository studentrepository;
+
+    @Test
+    void rebuiltCountsFollowWrites() {
+        when(studentrepository.countByGender()).thenReturn(List.of(row(Gender.MALE, 3), row(Gender.FEMALE, 2)));
+        GenderCounts counts = new GenderCounts(studentrepository, Duration.ZERO);
+
+        counts.rebuild();
+        counts.add(Gender.OTHER, 1);
+        counts.move(Gender.MALE, Gender.FEMALE);
+        counts.add(Gender.FEMALE, -1);
+
+        assertEquals(Map.of(Gender.MALE, 2L, Gender.FEMALE, 2L, Gender.OTHER, 1L), counts.counts());
+    }
+
+    @Test
+    void writesDuringRebuildAreKept() {
+        GenderCounts counts = new GenderCounts(studentrepository, Duration.ZERO);
+        when(studentrepository.countByGender()).thenAnswer(invocation -> {
+            counts.add(Gender.MALE, 1);
+            return List.of(row(Gender.MALE, 5));
+        });
+
+        counts.rebuild();
+
+        assertEquals(6L, counts.count(Gender.MALE));
+    }
+
+    @Test
+    void genderIsNormalizedFromFreeText() {
+        assertEquals(Gender.MALE, Gender.of(" Male "));
+        assertEquals(Gender.FEMALE, Gender.of("F"));
+        assertEquals(Gender.OTHER, Gender.of("non-binary"));
+        assertNull(Gender.of(" "));
+    }
+
+    private static StudentRepository.GenderCount row(Gender gender, long students) {
+        return new StudentRepository.GenderCount() {
+            @Override
+            public Gender getGender() {
+                return gender;
+            }
+
+            @Override
+            public long getStudents() {
+                return students;
+            }
+        };
+    }
+}
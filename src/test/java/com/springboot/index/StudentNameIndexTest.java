@@ -0,0 +1,60 @@
+package com.springboot.index;
+
+import com.springboot.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudentNameIndexTest {
+
+    @Mock
+    private StudentRepository studentrepository;
+
+    @Test
+    void rebuiltFilterKnowsExistingAndAddedNames() {
+        when(studentrepository.streamAllNames()).thenReturn(Stream.of("Rajkumar Prasad", "Amit"));
+        StudentNameIndex index = new StudentNameIndex(studentrepository, true, 1000, 0.01);
+
+        index.rebuild();
+        index.add("Sunil");
+
+        assertTrue(index.mightContain("rajkumar prasad"));
+        assertTrue(index.mightContain("amit"));
+        assertTrue(index.mightContain("sunil"));
+        assertFalse(index.mightContain("nobody"));
+    }
+
+    @Test
+    void disabledFilterNeverRulesOutNames() {
+        StudentNameIndex index = new StudentNameIndex(studentrepository, false, 1000, 0.01);
+
+        index.rebuild();
+
+        assertTrue(index.mightContain("nobody"));
+        verifyNoInteractions(studentrepository);
+    }
+
+    @Test
+    void filterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("student-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("student-" + i));
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,46 @@
+package com.springboot.loadtest;
+
+import com.springboot.SpringBootRestApi03Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts the whole application on a random port against an in-memory H2 database, for the
+ * benchmarks and load tests. Rate limiting is off so the clients measure the application,
+ * not the limiter.
+ */
+public final class EmbeddedStudentApp {
+
+    private EmbeddedStudentApp() {
+    }
+
+    /**
+     * Starts the application on the H2 database {@code database}; {@code arguments} are added
+     * as further {@code --name=value} properties.
+     */
+    public static ConfigurableApplicationContext start(String database, String... arguments) {
+        return start(new SpringApplicationBuilder(SpringBootRestApi03Application.class), database, arguments);
+    }
+
+    /**
+     * Same as {@link #start(String, String...)} for a builder that adds sources or profiles.
+     */
+    public static ConfigurableApplicationContext start(SpringApplicationBuilder builder, String database, String... arguments) {
+        // command line arguments, so they win over application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--rate-limit.enabled=false"));
+        args.addAll(Arrays.asList(arguments));
+        return builder.run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,371 @@
+package com.springboot.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.index.GenderCounts;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a mixed read and write workload over the student and teacher APIs through the real
+ * stack (Tomcat, Spring MVC, JPA, Hikari) against an embedded H2 database in MySQL mode,
+ * from many client threads that each send one request after the other. Reports throughput
+ * and p50/p99/p999 latency per operation and fails when a service level objective in
+ * {@code loadtest-slo.properties} is missed.
+ * <p>
+ * Everything runs in one JVM, so clients and server share the CPUs. deleteAll, archive-delete
+ * and the NDJSON stream are left out; they empty or read the whole data set rather than
+ * serve a share of the traffic. Excluded from the normal build, run it with
+ * {@code mvn -Ploadtest test -Dtest=StudentApiLoadTest}, optionally with
+ * {@code -Dloadtest.students=100000 -Dloadtest.clients=32 -Dloadtest.duration=60s}.
+ */
+@Tag("loadtest")
+class StudentApiLoadTest {
+
+    private static final int STUDENTS = Integer.getInteger("loadtest.students", 10_000);
+    private static final int TEACHERS = Integer.getInteger("loadtest.teachers", 1_000);
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 16);
+    private static final Duration WARMUP = DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s"));
+    private static final Duration MEASUREMENT = DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "30s"));
+    private static final String SLO_RESOURCE = System.getProperty("loadtest.slo", "loadtest-slo.properties");
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong uniqueEmails = new AtomicLong();
+    private final Queue<Long> createdStudents = new ConcurrentLinkedQueue<>();
+    private HttpClient client;
+    private String baseUri;
+
+    @Test
+    void mixedWorkloadMeetsItsObjectives() throws Exception {
+        ConfigurableApplicationContext context = EmbeddedStudentApp.start("api-loadtest",
+                "--request.logging.sample-rate=0",
+                "--student.gender-counts.refresh-interval=0",
+                "--logging.level.root=WARN",
+                "--logging.file.path=target/loadtest-logs");
+        Report report;
+        try {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            StudentSeed.students(jdbcTemplate, STUDENTS);
+            StudentSeed.teachers(jdbcTemplate, TEACHERS);
+            context.getBean(GenderCounts.class).rebuild();
+            baseUri = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            report = run();
+        } finally {
+            context.close();
+        }
+
+        System.out.println(report);
+        objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValue(Path.of("target", "loadtest-report.json").toFile(), report.toJson());
+        assertThat(report.violations(loadObjectives())).isEmpty();
+    }
+
+    private Report run() throws Exception {
+        long measureFrom = System.nanoTime() + WARMUP.toNanos();
+        long deadline = measureFrom + MEASUREMENT.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Recorded>> results = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                results.add(clients.submit(() -> drive(measureFrom, deadline)));
+            }
+            Report report = new Report();
+            for (Future<Recorded> result : results) {
+                report.add(result.get(MEASUREMENT.toSeconds() + WARMUP.toSeconds() + 120, TimeUnit.SECONDS));
+            }
+            return report;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * One client: picks an operation by weight, sends it and waits for the answer, until the deadline.
+     */
+    private Recorded drive(long measureFrom, long deadline) {
+        Recorded recorded = new Recorded();
+        int totalWeight = 0;
+        for (Operation operation : Operation.values()) {
+            totalWeight += operation.weight;
+        }
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(ThreadLocalRandom.current().nextInt(totalWeight));
+            HttpRequest request = operation.request.apply(this);
+            if (request == null) {
+                continue;
+            }
+            long started = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                ok = response.statusCode() / 100 == 2;
+                if (ok && operation == Operation.CREATE_STUDENT) {
+                    createdStudents.add(objectMapper.readTree(response.body()).path("data").path("studentId").asLong());
+                }
+            } catch (IOException ex) {
+                ok = false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (started >= measureFrom) {
+                recorded.record(operation, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started), ok);
+            }
+        }
+        return recorded;
+    }
+
+    private static Operation pick(int ticket) {
+        for (Operation operation : Operation.values()) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private Map<String, Double> loadObjectives() throws IOException {
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource(SLO_RESOURCE));
+        Map<String, Double> objectives = new LinkedHashMap<>();
+        properties.stringPropertyNames().stream().sorted()
+                .forEach(name -> objectives.put(name, Double.parseDouble(properties.getProperty(name))));
+        return objectives;
+    }
+
+    private long seededStudent() {
+        return ThreadLocalRandom.current().nextLong(1, STUDENTS + 1);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUri + path))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private Map<String, String> newStudent() {
+        long n = uniqueEmails.incrementAndGet();
+        return Map.of("studentName", "Load Student " + n, "studentEmail", "load" + n + "@example.com",
+                "studentGender", n % 2 == 0 ? "Female" : "Male");
+    }
+
+    /**
+     * The workload mix; weights are relative shares of the requests.
+     */
+    private enum Operation {
+        GET_STUDENT(25, test -> test.get("/api/student/" + test.seededStudent())),
+        LIST_STUDENTS(5, test -> test.get("/api/student?size=20&page=" + ThreadLocalRandom.current().nextInt(10))),
+        STUDENTS_BY_GENDER(8, test -> test.get("/api/student/gender/"
+                + (ThreadLocalRandom.current().nextBoolean() ? "male" : "female")
+                + "?size=20&page=" + ThreadLocalRandom.current().nextInt(10))),
+        STUDENTS_BY_DOMAIN(8, test -> test.get("/api/student/email-domain/"
+                + StudentSeed.domain(ThreadLocalRandom.current().nextInt(StudentSeed.EMAIL_DOMAINS)))),
+        TOP_STUDENTS(8, test -> {
+            long afterId = ThreadLocalRandom.current().nextLong(1, Math.max(2, STUDENTS / 2));
+            return test.get("/api/student/top/20?afterName=Student%20" + afterId + "&afterId=" + afterId);
+        }),
+        STUDENT_EXISTS(8, test -> test.get("/api/student/exists/Student%20"
+                + ThreadLocalRandom.current().nextLong(1, 2L * STUDENTS))),
+        GENDER_STATS(4, test -> test.get("/api/student/stats/gender")),
+        CREATE_STUDENT(8, test -> test.send("POST", "/api/student/save", test.newStudent())),
+        CREATE_STUDENTS(1, test -> {
+            List<Map<String, String>> students = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                students.add(test.newStudent());
+            }
+            return test.send("POST", "/api/student/bulk", students);
+        }),
+        UPDATE_STUDENT(5, test -> {
+            long id = test.seededStudent();
+            return test.send("PUT", "/api/student/" + id, Map.of("studentName", "Student " + id,
+                    "studentEmail", StudentSeed.email(id),
+                    "studentGender", ThreadLocalRandom.current().nextBoolean() ? "Male" : "Other"));
+        }),
+        UPDATE_EMAIL(2, test -> test.send("PATCH", "/api/student/" + test.seededStudent()
+                + "/update-email?newEmail=patched" + test.uniqueEmails.incrementAndGet() + "@example.com", Map.of())),
+        DELETE_STUDENT(3, test -> {
+            Long id = test.createdStudents.poll();
+            return id == null ? null : HttpRequest.newBuilder(URI.create(test.baseUri + "/api/student/" + id))
+                    .DELETE().build();
+        }),
+        GET_TEACHER(5, test -> test.get("/api/teacher/" + ThreadLocalRandom.current().nextLong(1, TEACHERS + 1))),
+        CREATE_TEACHER(2, test -> {
+            long n = test.uniqueEmails.incrementAndGet();
+            return test.send("POST", "/api/teacher/save", Map.of("teacherName", "Load Teacher " + n,
+                    "teacherEmail", "teacher.load" + n + "@example.com", "teacherGender", "Female"));
+        });
+
+        private final int weight;
+        private final Function<StudentApiLoadTest, HttpRequest> request;
+
+        Operation(int weight, Function<StudentApiLoadTest, HttpRequest> request) {
+            this.weight = weight;
+            this.request = request;
+        }
+
+        String key() {
+            String[] words = name().toLowerCase().split("_");
+            StringBuilder key = new StringBuilder(words[0]);
+            for (int i = 1; i < words.length; i++) {
+                key.append(Character.toUpperCase(words[i].charAt(0))).append(words[i].substring(1));
+            }
+            return key.toString();
+        }
+    }
+
+    /**
+     * Latencies in microseconds and error counts of one client thread.
+     */
+    private static final class Recorded {
+
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+        private void record(Operation operation, long micros, boolean ok) {
+            latencies.computeIfAbsent(operation, ignored -> new Histogram(HIGHEST_LATENCY_MICROS, 3))
+                    .recordValue(Math.min(micros, HIGHEST_LATENCY_MICROS));
+            if (!ok) {
+                errors.merge(operation, 1L, Long::sum);
+            }
+        }
+    }
+
+    private static final class Report {
+
+        private final Map<String, Histogram> latencies = new LinkedHashMap<>();
+        private final Map<String, Long> errors = new LinkedHashMap<>();
+
+        private Report() {
+            latencies.put("all", new Histogram(HIGHEST_LATENCY_MICROS, 3));
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation.key(), new Histogram(HIGHEST_LATENCY_MICROS, 3));
+            }
+        }
+
+        private void add(Recorded recorded) {
+            recorded.latencies.forEach((operation, histogram) -> {
+                latencies.get(operation.key()).add(histogram);
+                latencies.get("all").add(histogram);
+            });
+            recorded.errors.forEach((operation, count) -> {
+                errors.merge(operation.key(), count, Long::sum);
+                errors.merge("all", count, Long::sum);
+            });
+        }
+
+        private double throughput(String name) {
+            return latencies.get(name).getTotalCount() / (double) MEASUREMENT.toSeconds();
+        }
+
+        private double errorRate(String name) {
+            long count = latencies.get(name).getTotalCount();
+            return count == 0 ? 0 : errors.getOrDefault(name, 0L) / (double) count;
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        /**
+         * Objectives are {@code <operation>.p50}, {@code .p99} and {@code .p999} in milliseconds,
+         * {@code <operation>.min-throughput} in requests per second and {@code <operation>.max-error-rate}
+         * as a fraction, where the operation is {@code all} or one of the operation keys.
+         */
+        private List<String> violations(Map<String, Double> objectives) {
+            List<String> violations = new ArrayList<>();
+            objectives.forEach((name, limit) -> {
+                int dot = name.indexOf('.');
+                String operation = name.substring(0, dot);
+                String measure = name.substring(dot + 1);
+                Histogram histogram = latencies.get(operation);
+                if (histogram == null) {
+                    violations.add(name + ": unknown operation");
+                    return;
+                }
+                double actual = switch (measure) {
+                    case "p50" -> millis(histogram, 50);
+                    case "p99" -> millis(histogram, 99);
+                    case "p999" -> millis(histogram, 99.9);
+                    case "min-throughput" -> throughput(operation);
+                    case "max-error-rate" -> errorRate(operation);
+                    default -> Double.NaN;
+                };
+                boolean met = measure.equals("min-throughput") ? actual >= limit : actual <= limit;
+                if (!met) {
+                    violations.add(String.format("%s: %.3f against an objective of %.3f", name, actual, limit));
+                }
+            });
+            return violations;
+        }
+
+        private List<Map<String, Object>> toJson() {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            latencies.forEach((name, histogram) -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("operation", name);
+                row.put("requests", histogram.getTotalCount());
+                row.put("throughput", throughput(name));
+                row.put("p50Millis", millis(histogram, 50));
+                row.put("p99Millis", millis(histogram, 99));
+                row.put("p999Millis", millis(histogram, 99.9));
+                row.put("errors", errors.getOrDefault(name, 0L));
+                rows.add(row);
+            });
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder table = new StringBuilder(String.format("%n%d clients, %d students, %ds measured%n",
+                    CLIENTS, STUDENTS, MEASUREMENT.toSeconds()));
+            table.append(String.format("%-18s %9s %9s %9s %9s %9s %7s%n",
+                    "operation", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "errors"));
+            latencies.forEach((name, histogram) -> table.append(String.format("%-18s %9d %9.1f %9.2f %9.2f %9.2f %7d%n",
+                    name, histogram.getTotalCount(), throughput(name), millis(histogram, 50), millis(histogram, 99),
+                    millis(histogram, 99.9), errors.getOrDefault(name, 0L))));
+            return table.toString();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.springboot.loadtest;
+
+import com.springboot.model.Gender;
+import com.springboot.model.Student;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills an empty database with generated students and teachers through batched JDBC
+ * inserts, for the benchmarks and load tests. Student {@code n} is called "Student n",
+ * has the email {@code studentn@domain(n % EMAIL_DOMAINS).com} and cycles through the
+ * genders; teacher {@code n} has the email {@code teachern@school.com}.
+ */
+public final class StudentSeed {
+
+    public static final int EMAIL_DOMAINS = 1000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+
+    private StudentSeed() {
+    }
+
+    /**
+     * Inserts students with ids 1 to {@code rows}, filling the derived columns the way
+     * {@link Student} does, and moves the id generator past them.
+     */
+    public static void students(JdbcTemplate jdbcTemplate, int rows) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int id = 1; id <= rows; id++) {
+            String gender = GENDERS[id % GENDERS.length];
+            String name = "Student " + id;
+            batch.add(new Object[]{id, name, email(id), gender, domain(id), Student.nameKeyOf(name),
+                    String.valueOf(Gender.of(gender).getCode())});
+            if (batch.size() == BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("insert into `student-table` (student_id, student_name, student_email, "
+                        + "student_gender, email_domain, student_name_key, gender, version) "
+                        + "values (?, ?, ?, ?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.update("update student_id_generator set next_val = ? where sequence_name = 'student_id'",
+                rows + Student.ID_ALLOCATION_SIZE);
+    }
+
+    /**
+     * Inserts teachers with ids 1 to {@code rows}.
+     */
+    public static void teachers(JdbcTemplate jdbcTemplate, int rows) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, "Teacher " + id, "teacher" + id + "@school.com", GENDERS[id % GENDERS.length]});
+            if (batch.size() == BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("insert into teachers (teacher_id, teacher_name, teacher_email, teacher_gender) "
+                        + "values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("alter table teachers alter column teacher_id restart with " + (rows + 1));
+    }
+
+    public static String email(long id) {
+        return "student" + id + "@" + domain(id);
+    }
+
+    public static String domain(long id) {
+        return "domain" + id % EMAIL_DOMAINS + ".com";
+    }
+}
@@ -0,0 +1,204 @@
+package com.springboot.loadtest;
+
+import com.springboot.SpringBootRestApi03Application;
+import com.springboot.model.Student;
+import com.springboot.repository.StudentRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares platform and virtual request threads at 2,000 concurrent connections while the
+ * database is the bottleneck: every statement takes an extra 20ms and the pool has 10
+ * connections. 1,900 connections keep calling {@code /exists/{name}}, which needs the
+ * database, and 100 keep reading a cached student, which does not.
+ * <p>
+ * With platform threads all of Tomcat's workers end up waiting for a connection and the
+ * cached reads queue behind them; with virtual threads they are answered straight away.
+ * The database is in-memory H2, so the MySQL driver, and any pinning in it, is not part of
+ * the measurement; check that against MySQL with {@code -Djdk.tracePinnedThreads=short}.
+ * Excluded from the normal build. The build targets release 17 and a JDK 17 skips this test,
+ * so run Maven itself on a JDK 21:
+ * {@code JAVA_HOME=/path/to/jdk-21 mvn -Ploadtest test -Dtest=ThreadingModeLoadTest}.
+ */
+@Tag("loadtest")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ThreadingModeLoadTest {
+
+    private static final int CONNECTIONS = 2000;
+    private static final int CACHED_CONNECTIONS = 100;
+    private static final long STATEMENT_LATENCY_MILLIS = 20;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(20);
+
+    @Test
+    void virtualThreadsKeepServingCachedReadsWhileTheDatabaseIsSaturated() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.println(platform);
+        System.out.println(virtual);
+        assertThat(virtual.errors.get()).isZero();
+        assertThat(virtual.cached.percentile(0.99)).isLessThan(platform.cached.percentile(0.99));
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        // a database per run, so the second one can seed the same student
+        ConfigurableApplicationContext context = EmbeddedStudentApp.start(
+                new SpringApplicationBuilder(SpringBootRestApi03Application.class, SlowStatements.class),
+                "loadtest-" + (virtualThreads ? "virtual" : "platform"),
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.hikari.maximum-pool-size=10",
+                "--spring.datasource.hikari.connection-timeout=30000",
+                "--request.logging.sample-rate=0",
+                "--logging.level.root=WARN",
+                "--logging.file.path=target/loadtest-logs");
+        try {
+            Student student = context.getBean(StudentRepository.class)
+                    .save(new Student(null, "Load Test", "load.test@example.com", "Female"));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI cached = URI.create("http://localhost:" + port + "/api/student/" + student.getStudentId());
+            URI database = URI.create("http://localhost:" + port + "/api/student/exists/nobody");
+
+            Result result = new Result(virtualThreads ? "virtual" : "platform");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            long measureFrom = System.nanoTime() + WARMUP.toNanos();
+            long deadline = measureFrom + MEASUREMENT.toNanos();
+            CompletableFuture<?>[] connections = new CompletableFuture<?>[CONNECTIONS];
+            for (int i = 0; i < CONNECTIONS; i++) {
+                boolean cachedRead = i % (CONNECTIONS / CACHED_CONNECTIONS) == 0;
+                connections[i] = loop(client, cachedRead ? cached : database,
+                        cachedRead ? result.cached : result.database, result, measureFrom, deadline);
+            }
+            CompletableFuture.allOf(connections).get(MEASUREMENT.toSeconds() + 120, TimeUnit.SECONDS);
+            return result;
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Sends one request after the other on the same connection slot until the deadline.
+     */
+    private CompletableFuture<Void> loop(HttpClient client, URI uri, Latencies latencies, Result result,
+                                         long measureFrom, long deadline) {
+        long started = System.nanoTime();
+        if (started >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (started >= measureFrom) {
+                        latencies.record(System.nanoTime() - started);
+                        if (failure != null || response.statusCode() != 200) {
+                            result.errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, uri, latencies, result, measureFrom, deadline));
+    }
+
+    /**
+     * Adds {@link #STATEMENT_LATENCY_MILLIS} to every prepared statement execution, standing in
+     * for a slow database server.
+     */
+    static class SlowStatements implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof DataSource dataSource ? slow(dataSource, DataSource.class) : bean;
+        }
+
+        private static <T> T slow(T target, Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (type == PreparedStatement.class && method.getName().startsWith("execute")) {
+                    Thread.sleep(STATEMENT_LATENCY_MILLIS);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+                if (method.getReturnType() == Connection.class) {
+                    return slow((Connection) result, Connection.class);
+                }
+                if (method.getReturnType() == PreparedStatement.class) {
+                    return slow((PreparedStatement) result, PreparedStatement.class);
+                }
+                return result;
+            }));
+        }
+    }
+
+    private static final class Result {
+
+        private final String threads;
+        private final Latencies cached = new Latencies();
+        private final Latencies database = new Latencies();
+        private final AtomicLong errors = new AtomicLong();
+
+        private Result(String threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s threads: cached reads %s | database reads %s | %d errors",
+                    threads, cached, database, errors.get());
+        }
+    }
+
+    private static final class Latencies {
+
+        private long[] nanos = new long[1 << 16];
+        private int count;
+
+        private synchronized void record(long latency) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latency;
+        }
+
+        private synchronized long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, (long) Math.ceil(percentile * count) - 1)];
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%d requests, %.1f/s, p50 %.1fms, p99 %.1fms", count,
+                    count / (double) MEASUREMENT.toSeconds(),
+                    percentile(0.5) / 1e6, percentile(0.99) / 1e6);
+        }
+    }
+}
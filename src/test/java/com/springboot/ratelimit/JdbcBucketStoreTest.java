@@ -0,0 +1,170 @@
+package com.springboot.ratelimit;
+
+import io.github.bucket4j.ConsumptionProbe;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcBucketStoreTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private RateLimitProperties properties;
+    private RateLimitProperties.Policy policy;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/migration/V6__rate_limit_bucket.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        policy = new RateLimitProperties.Policy();
+        policy.setCapacity(20);
+        policy.setPeriod(Duration.ofHours(1));
+        properties = new RateLimitProperties();
+        properties.setPolicies(List.of(policy));
+        properties.getJdbc().setReservationSize(4);
+        properties.getJdbc().setSlowThreshold(Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private JdbcBucketStore newStore(JdbcTemplate template) {
+        return new JdbcBucketStore(template, properties, new LocalBucketStore(properties));
+    }
+
+    private static int consumeAll(JdbcBucketStore store, RateLimitProperties.Policy policy, String key, int attempts) {
+        int consumed = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (store.tryConsume(policy, key).isConsumed()) {
+                consumed++;
+            }
+        }
+        return consumed;
+    }
+
+    @Test
+    void testLimitIsSharedBetweenInstances() {
+        JdbcBucketStore first = newStore(jdbcTemplate);
+        JdbcBucketStore second = newStore(jdbcTemplate);
+
+        int consumed = 0;
+        for (int i = 0; i < 20; i++) {
+            consumed += first.tryConsume(policy, "10.0.0.1").isConsumed() ? 1 : 0;
+            consumed += second.tryConsume(policy, "10.0.0.1").isConsumed() ? 1 : 0;
+        }
+
+        assertEquals(20, consumed);
+        assertFalse(first.tryConsume(policy, "10.0.0.1").isConsumed());
+        assertEquals(20L, jdbcTemplate.queryForObject("select sum(consumed) from rate_limit_bucket", Long.class));
+    }
+
+    @Test
+    void testReservesTokensInBatches() {
+        AtomicInteger updates = new AtomicInteger();
+        JdbcTemplate countingTemplate = new JdbcTemplate(database) {
+            @Override
+            public int update(String sql, Object... args) {
+                updates.incrementAndGet();
+                return super.update(sql, args);
+            }
+        };
+        JdbcBucketStore store = newStore(countingTemplate);
+
+        assertEquals(20, consumeAll(store, policy, "10.0.0.1", 20));
+        assertTrue(updates.get() < 10, "expected batched reservations but saw " + updates.get() + " updates");
+
+        int updatesWhenExhausted = updates.get();
+        ConsumptionProbe rejected = store.tryConsume(policy, "10.0.0.1");
+        assertFalse(rejected.isConsumed());
+        assertTrue(rejected.getNanosToWaitForRefill() > 0);
+        consumeAll(store, policy, "10.0.0.1", 10);
+        assertEquals(updatesWhenExhausted, updates.get());
+    }
+
+    /**
+     * Stands in for another instance that takes a token from the row right before each of
+     * the first {@code losses} compare-and-sets, so they all fail.
+     */
+    private JdbcTemplate contendedTemplate(int losses) {
+        AtomicInteger remainingLosses = new AtomicInteger(losses);
+        return new JdbcTemplate(database) {
+            @Override
+            public int update(String sql, Object... args) {
+                if (sql.startsWith("update") && remainingLosses.getAndDecrement() > 0) {
+                    jdbcTemplate.update("update rate_limit_bucket set consumed = consumed + 1");
+                }
+                return super.update(sql, args);
+            }
+        };
+    }
+
+    @Test
+    void testRetriesReservationsLostToOtherInstances() {
+        JdbcBucketStore store = newStore(jdbcTemplate);
+        assertTrue(store.tryConsume(policy, "10.0.0.1").isConsumed());
+        JdbcBucketStore contended = newStore(contendedTemplate(3));
+
+        assertTrue(contended.tryConsume(policy, "10.0.0.1").isConsumed());
+        assertFalse(contended.isDegraded());
+        // 4 from the first store, 3 from the other instance, 4 reserved after the losses
+        assertEquals(11L, jdbcTemplate.queryForObject("select consumed from rate_limit_bucket", Long.class));
+    }
+
+    @Test
+    void testUsesLocalBucketInsteadOfRejectingWhenEveryReservationIsLost() {
+        JdbcBucketStore store = newStore(jdbcTemplate);
+        assertTrue(store.tryConsume(policy, "10.0.0.1").isConsumed());
+        JdbcBucketStore contended = newStore(contendedTemplate(Integer.MAX_VALUE));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(contended.tryConsume(policy, "10.0.0.1").isConsumed());
+        }
+        assertFalse(contended.isDegraded());
+    }
+
+    @Test
+    void testFallsBackToLocalBucketsWhenTableFails() {
+        JdbcBucketStore store = newStore(jdbcTemplate);
+        jdbcTemplate.execute("drop table rate_limit_bucket");
+
+        assertTrue(store.tryConsume(policy, "10.0.0.1").isConsumed());
+        assertTrue(store.isDegraded());
+        assertEquals(19, consumeAll(store, policy, "10.0.0.1", 25));
+    }
+
+    @Test
+    void testFallsBackToLocalBucketsWhenTableIsSlow() {
+        properties.getJdbc().setSlowThreshold(Duration.ZERO);
+        JdbcBucketStore store = newStore(jdbcTemplate);
+
+        assertTrue(store.tryConsume(policy, "10.0.0.1").isConsumed());
+        assertTrue(store.isDegraded());
+    }
+
+    @Test
+    void testSweepDeletesIdleRows() {
+        JdbcBucketStore store = newStore(jdbcTemplate);
+        store.tryConsume(policy, "10.0.0.1");
+        jdbcTemplate.update("update rate_limit_bucket set window_start = 0");
+
+        store.sweep();
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from rate_limit_bucket", Integer.class));
+    }
+}
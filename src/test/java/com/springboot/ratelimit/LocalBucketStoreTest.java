@@ -0,0 +1,94 @@
+package com.springboot.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBucketStoreTest {
+
+    private static RateLimitProperties properties(long capacity, Duration period) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setCapacity(capacity);
+        policy.setPeriod(period);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(policy));
+        return properties;
+    }
+
+    @Test
+    void testTrackedKeysStayBelowCap() {
+        RateLimitProperties properties = properties(5, Duration.ofMinutes(1));
+        properties.setMaxKeys(100);
+        LocalBucketStore store = new LocalBucketStore(properties);
+        RateLimitProperties.Policy policy = properties.getPolicies().get(0);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(store.tryConsume(policy, "10.0." + (i / 256) + "." + (i % 256)).isConsumed());
+        }
+        assertTrue(store.trackedKeys() <= 100);
+    }
+
+    @Test
+    void testConcurrentNewKeysNeverPassCap() throws Exception {
+        RateLimitProperties properties = properties(5, Duration.ofMinutes(1));
+        properties.setMaxKeys(100);
+        LocalBucketStore store = new LocalBucketStore(properties);
+        RateLimitProperties.Policy policy = properties.getPolicies().get(0);
+        int threads = 8;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        AtomicLong largest = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                clients.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        store.tryConsume(policy, "10." + thread + "." + (i / 256) + "." + (i % 256));
+                        largest.accumulateAndGet(store.trackedKeys(), Math::max);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(largest.get() <= 100, "tracked " + largest.get() + " keys");
+    }
+
+    @Test
+    void testSweepDropsIdleBuckets() throws Exception {
+        RateLimitProperties properties = properties(5, Duration.ofMillis(10));
+        properties.setIdleTimeout(Duration.ofMillis(10));
+        LocalBucketStore store = new LocalBucketStore(properties);
+
+        store.tryConsume(properties.getPolicies().get(0), "10.0.0.1");
+        assertEquals(1, store.trackedKeys());
+        Thread.sleep(50);
+        store.sweep();
+        assertEquals(0, store.trackedKeys());
+    }
+
+    @Test
+    void testIdleTimeoutIsNeverShorterThanPeriod() {
+        RateLimitProperties properties = properties(5, Duration.ofHours(1));
+        properties.setIdleTimeout(Duration.ofMinutes(10));
+
+        assertEquals(Duration.ofHours(1), properties.effectiveIdleTimeout());
+    }
+}
@@ -0,0 +1,139 @@
+package com.springboot.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static RateLimitProperties.Policy policy(String pattern, long capacity, HttpMethod... methods) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setPattern(pattern);
+        policy.setCapacity(capacity);
+        policy.setPeriod(Duration.ofMinutes(1));
+        policy.setMethods(Set.of(methods));
+        return policy;
+    }
+
+    private RateLimitingFilter filter(RateLimitProperties.KeyStrategy keyStrategy, RateLimitProperties.Policy... policies) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setKeyStrategy(keyStrategy);
+        properties.setPolicies(List.of(policies));
+        return new RateLimitingFilter(properties, new LocalBucketStore(properties), new ObjectMapper(), meterRegistry);
+    }
+
+    private static MockHttpServletResponse call(RateLimitingFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    @Test
+    void testRejectsOnceBucketIsEmptyAndReportsHeaders() throws Exception {
+        RateLimitingFilter filter = filter(RateLimitProperties.KeyStrategy.IP, policy("/api/student/**", 2));
+
+        MockHttpServletResponse first = call(filter, request("GET", "/api/student/1", "10.0.0.1"));
+        assertEquals(200, first.getStatus());
+        assertEquals("1", first.getHeader(RateLimitingFilter.REMAINING_HEADER));
+        assertEquals(200, call(filter, request("GET", "/api/student/1", "10.0.0.1")).getStatus());
+
+        MockHttpServletResponse rejected = call(filter, request("GET", "/api/student/1", "10.0.0.1"));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("0", rejected.getHeader(RateLimitingFilter.REMAINING_HEADER));
+        long retryAfter = Long.parseLong(rejected.getHeader(RateLimitingFilter.RETRY_AFTER_HEADER));
+        assertTrue(retryAfter >= 1 && retryAfter <= 60);
+        assertEquals("application/json", rejected.getContentType());
+        assertEquals(rejected.getContentAsByteArray().length, rejected.getContentLength());
+        assertEquals("{\"status\":false,\"message\":\"Too many requests - Rate limit exceeded\",\"data\":null}",
+                rejected.getContentAsString());
+        assertEquals(1.0, meterRegistry.get("rate.limit.rejections").tag("pattern", "/api/student/**").counter().count());
+
+        // other clients keep their own allowance
+        assertEquals(200, call(filter, request("GET", "/api/student/1", "10.0.0.2")).getStatus());
+    }
+
+    @Test
+    void testFirstMatchingPolicyByPathAndMethodApplies() throws Exception {
+        RateLimitingFilter filter = filter(RateLimitProperties.KeyStrategy.IP,
+                policy("/api/student/bulk", 1, HttpMethod.POST),
+                policy("/api/student/**", 100));
+
+        assertEquals(200, call(filter, request("POST", "/api/student/bulk", "10.0.0.1")).getStatus());
+        assertEquals(429, call(filter, request("POST", "/api/student/bulk", "10.0.0.1")).getStatus());
+        MockHttpServletResponse get = call(filter, request("GET", "/api/student/bulk", "10.0.0.1"));
+        assertEquals(200, get.getStatus());
+        assertEquals("99", get.getHeader(RateLimitingFilter.REMAINING_HEADER));
+    }
+
+    @Test
+    void testUnmatchedRequestsAreNotLimited() throws Exception {
+        RateLimitingFilter filter = filter(RateLimitProperties.KeyStrategy.IP, policy("/api/student/**", 1));
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = call(filter, request("GET", "/api/teacher/1", "10.0.0.1"));
+            assertEquals(200, response.getStatus());
+            assertNull(response.getHeader(RateLimitingFilter.REMAINING_HEADER));
+        }
+    }
+
+    @Test
+    void testForwardedForUsesTheHopAddedByTheProxy() throws Exception {
+        RateLimitingFilter filter = filter(RateLimitProperties.KeyStrategy.FORWARDED_FOR, policy("/**", 1));
+
+        MockHttpServletRequest viaProxy = request("GET", "/api/student/1", "192.168.1.1");
+        viaProxy.addHeader("X-Forwarded-For", "203.0.113.7");
+        assertEquals(200, call(filter, viaProxy).getStatus());
+
+        // a client prepending made-up addresses is still keyed on what the proxy appended
+        MockHttpServletRequest spoofed = request("GET", "/api/student/1", "192.168.1.2");
+        spoofed.addHeader("X-Forwarded-For", "10.9.8.7, 203.0.113.7");
+        assertEquals(429, call(filter, spoofed).getStatus());
+
+        MockHttpServletRequest otherClient = request("GET", "/api/student/1", "192.168.1.1");
+        otherClient.addHeader("X-Forwarded-For", "203.0.113.7, 203.0.113.8");
+        assertEquals(200, call(filter, otherClient).getStatus());
+    }
+
+    @Test
+    void testApiKeyFallsBackToRemoteAddress() throws Exception {
+        RateLimitingFilter filter = filter(RateLimitProperties.KeyStrategy.API_KEY, policy("/**", 1));
+
+        MockHttpServletRequest withKey = request("GET", "/api/student/1", "10.0.0.1");
+        withKey.addHeader("X-API-Key", "abc");
+        assertEquals(200, call(filter, withKey).getStatus());
+        // same address without the key is a different client
+        assertEquals(200, call(filter, request("GET", "/api/student/1", "10.0.0.1")).getStatus());
+        assertEquals(429, call(filter, request("GET", "/api/student/1", "10.0.0.1")).getStatus());
+    }
+
+    @Test
+    void testDisabledFilterPassesEverything() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(false);
+        properties.setPolicies(List.of(policy("/**", 1)));
+        RateLimitingFilter filter = new RateLimitingFilter(properties, new LocalBucketStore(properties), new ObjectMapper(), meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, call(filter, request("GET", "/api/student/1", "10.0.0.1")).getStatus());
+        }
+    }
+}
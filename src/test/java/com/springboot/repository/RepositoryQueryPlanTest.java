@@ -0,0 +1,137 @@
+package com.springboot.repository;
+
+import com.springboot.model.Gender;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the SQL of every repository query that looks rows up, against an embedded
+ * H2 database built by the Flyway migrations, and fails if one of them plans a full table
+ * scan. Queries that read every row on purpose (findAll, streamAll, streamAllNames) are left out.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.springboot.repository.RepositoryQueryPlanTest$RecordingInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTest {
+
+    @Autowired
+    private StudentRepository studentrepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Named<RepositoryCall>> queries() {
+        return Stream.of(
+                query("existsByStudentEmail", (students, teachers) -> students.existsByStudentEmail("raj@gmail.com")),
+                query("findByGender", (students, teachers) -> students.findByGender(Gender.MALE,
+                        PageRequest.of(2, 20, Sort.by("studentId")))),
+                query("findGenderById", (students, teachers) -> students.findGenderById(1L)),
+                query("countByGender", (students, teachers) -> students.countByGender()),
+                query("findByEmailDomain", (students, teachers) -> students.findByEmailDomain("gmail.com")),
+                query("findByOrderByStudentNameKeyAscStudentIdAsc",
+                        (students, teachers) -> students.findByOrderByStudentNameKeyAscStudentIdAsc(Limit.of(10))),
+                query("findByNameKeyAfter", (students, teachers) -> students.findByNameKeyAfter("raj", 1L, Limit.of(10))),
+                query("existsByStudentNameKey", (students, teachers) -> students.existsByStudentNameKey("raj")),
+                query("findExistingEmails",
+                        (students, teachers) -> students.findExistingEmails(List.of("raj@gmail.com", "asha@gmail.com"))),
+                query("updateDetails", (students, teachers) -> students.updateDetails(1L, "Raj", "raj@gmail.com",
+                        "Male", "gmail.com", "raj", Gender.MALE, Gender.MALE, 3L)),
+                query("updateEmail", (students, teachers) -> students.updateEmail(1L, "raj@gmail.com", "gmail.com", 3L)),
+                query("existsByStudentIdAndVersion", (students, teachers) -> students.existsByStudentIdAndVersion(1L, 3L)),
+                query("findIdsAfter", (students, teachers) -> students.findIdsAfter(0L, Limit.of(10))),
+                query("archiveIdRange", (students, teachers) -> students.archiveIdRange(0L, 10L, Instant.now())),
+                query("deleteArchivedIdRange", (students, teachers) -> students.deleteArchivedIdRange(0L, 10L)),
+                query("deleteStudent", (students, teachers) -> students.deleteStudent(1L)),
+                query("deleteIdRange", (students, teachers) -> students.deleteIdRange(0L, 10L)),
+                query("existsByTeacherEmail", (students, teachers) -> teachers.existsByTeacherEmail("ravi@gmail.com")));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void queryPlanUsesAnIndex(RepositoryCall call) {
+        RecordingInspector.STATEMENTS.clear();
+        call.run(studentrepository, teacherRepository);
+
+        List<String> statements = List.copyOf(RecordingInspector.STATEMENTS);
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            assertThat(explain(sql)).as(sql).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    @Test
+    void keysetPageStartsAtTheLastKey() {
+        RecordingInspector.STATEMENTS.clear();
+        studentrepository.findByNameKeyAfter("raj", 1L, Limit.of(10));
+
+        assertThat(explain(RecordingInspector.STATEMENTS.get(0))).contains("student_name_key >= ?1");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                // the plan is made when the statement is prepared, so the values do not matter
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    private static Named<RepositoryCall> query(String name, RepositoryCall call) {
+        return Named.of(name, call);
+    }
+
+    @FunctionalInterface
+    interface RepositoryCall {
+        void run(StudentRepository students, TeacherRepository teachers);
+    }
+
+    /**
+     * Collects the SQL Hibernate sends, before parameters are bound.
+     */
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -1,14 +1,28 @@
 package com.springboot.repository;
 
+import com.springboot.model.Gender;
 import com.springboot.model.Student;
+import com.springboot.model.StudentArchive;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -17,6 +31,12 @@ class StudentRepositoryTest {
     @Autowired
     private StudentRepository studentrepository;
 
+    @Autowired
+    private StudentArchiveRepository studentArchiveRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     @DisplayName("Should return true if student email exists")
     void testExistsByStudentEmail_ReturnsTrue() {
@@ -80,4 +100,148 @@ class StudentRepositoryTest {
         var students = studentrepository.findAll();
         assertThat(students).hasSize(4);
     }
+
+    @Test
+    @DisplayName("Should find students by stored email domain")
+    void testFindByEmailDomain() {
+
+        studentrepository.save(new Student(null, "Alice", "alice@Gmail.com", "Female"));
+        studentrepository.save(new Student(null, "Bob", "bob@yahoo.com", "Male"));
+
+
+        var students = studentrepository.findByEmailDomain("gmail.com");
+        assertThat(students).hasSize(1);
+        assertThat(students.get(0).getStudentName()).isEqualTo("Alice");
+    }
+
+    @Test
+    @DisplayName("Should page students by name and id without offsets")
+    void testTopNByNameKeyWithKeyset() {
+
+        Student bob = studentrepository.save(new Student(null, "bob", "bob@gmail.com", "Male"));
+        Student alice = studentrepository.save(new Student(null, "Alice", "alice@gmail.com", "Female"));
+        Student bob2 = studentrepository.save(new Student(null, "Bob", "bob2@gmail.com", "Male"));
+
+
+        var firstPage = studentrepository.findByOrderByStudentNameKeyAscStudentIdAsc(Limit.of(2));
+        assertThat(firstPage).extracting(Student::getStudentId).containsExactly(alice.getStudentId(), bob.getStudentId());
+
+        Student last = firstPage.get(1);
+        var nextPage = studentrepository.findByNameKeyAfter(last.getStudentNameKey(), last.getStudentId(), Limit.of(2));
+        assertThat(nextPage).extracting(Student::getStudentId).containsExactly(bob2.getStudentId());
+    }
+
+    @Test
+    @DisplayName("Should stream all students in id order")
+    void testStreamAll() {
+
+        Student first = studentrepository.save(new Student(null, "Alice", "alice@gmail.com", "Female"));
+        Student second = studentrepository.save(new Student(null, "Bob", "bob@gmail.com", "Male"));
+
+
+        try (var students = studentrepository.streamAll()) {
+            assertThat(students.map(Student::getStudentId)).containsExactly(first.getStudentId(), second.getStudentId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should return only the emails that are already taken")
+    void testFindExistingEmails() {
+
+        studentrepository.save(new Student(null, "Alice", "alice@gmail.com", "Female"));
+
+
+        var existing = studentrepository.findExistingEmails(List.of("alice@gmail.com", "new@gmail.com"));
+        assertThat(existing).containsExactly("alice@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Should move an id range into the archive and delete only archived rows")
+    void testArchiveAndDeleteIdRange() {
+        Student first = studentrepository.save(new Student(null, "Asha", "asha@gmail.com", "Female"));
+        Student second = studentrepository.save(new Student(null, "Bala", "bala@gmail.com", "Male"));
+        Student third = studentrepository.save(new Student(null, "Chitra", "chitra@gmail.com", "Female"));
+
+        List<Long> ids = studentrepository.findIdsAfter(0L, Limit.of(2));
+        assertThat(ids).containsExactly(first.getStudentId(), second.getStudentId());
+
+        int archived = studentrepository.archiveIdRange(0L, second.getStudentId(), Instant.now());
+        int deleted = studentrepository.deleteArchivedIdRange(0L, third.getStudentId());
+
+        assertThat(archived).isEqualTo(2);
+        assertThat(deleted).isEqualTo(2);
+        assertThat(studentrepository.existsById(first.getStudentId())).isFalse();
+        assertThat(studentrepository.existsById(third.getStudentId())).isTrue();
+        assertThat(studentArchiveRepository.findById(first.getStudentId()))
+                .get().extracting(StudentArchive::getStudentEmail).isEqualTo("asha@gmail.com");
+    }
+
+    @Test
+    void testDeleteIdRange() {
+        Student first = studentrepository.save(new Student(null, "Asha", "asha@gmail.com", "Female"));
+        Student second = studentrepository.save(new Student(null, "Bala", "bala@gmail.com", "Male"));
+
+        int deleted = studentrepository.deleteIdRange(0L, first.getStudentId());
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(studentrepository.existsById(first.getStudentId())).isFalse();
+        assertThat(studentrepository.existsById(second.getStudentId())).isTrue();
+    }
+
+    @Test
+    void testUpdateEmailInOneStatement() {
+        Student student = studentrepository.saveAndFlush(new Student(null, "Asha", "asha@gmail.com", "Female"));
+
+        int updated = studentrepository.updateEmail(student.getStudentId(), "asha@Example.com", "example.com", null);
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(1);
+        Student reloaded = entityManager.find(Student.class, student.getStudentId());
+        assertThat(reloaded.getStudentEmail()).isEqualTo("asha@Example.com");
+        assertThat(reloaded.getEmailDomain()).isEqualTo("example.com");
+        assertThat(reloaded.getVersion()).isEqualTo(student.getVersion() + 1);
+        assertThat(reloaded.getUpdatedAt()).isAfterOrEqualTo(student.getUpdatedAt());
+        assertThat(studentrepository.updateEmail(-1L, "nobody@gmail.com", "gmail.com", null)).isZero();
+    }
+
+    @Test
+    void testUpdateEmailOnlyMatchesTheExpectedVersion() {
+        Student student = studentrepository.saveAndFlush(new Student(null, "Asha", "asha@gmail.com", "Female"));
+        long version = student.getVersion();
+
+        assertThat(studentrepository.updateEmail(student.getStudentId(), "asha@example.com", "example.com", version + 1))
+                .isZero();
+        assertThat(studentrepository.updateEmail(student.getStudentId(), "asha@example.com", "example.com", version))
+                .isEqualTo(1);
+        assertThat(studentrepository.existsByStudentIdAndVersion(student.getStudentId(), version + 1)).isTrue();
+    }
+
+    @Test
+    void testDuplicateEmailViolatesUniqueConstraint() {
+        studentrepository.saveAndFlush(new Student(null, "Asha", "asha@gmail.com", "Female"));
+        Student other = studentrepository.saveAndFlush(new Student(null, "Bala", "bala@gmail.com", "Male"));
+
+        assertThatThrownBy(() -> studentrepository.updateEmail(other.getStudentId(), "asha@gmail.com", "gmail.com", null))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .cause()
+                .isInstanceOfSatisfying(ConstraintViolationException.class, violation ->
+                        assertThat(violation.getConstraintName()).containsIgnoringCase(Student.EMAIL_UNIQUE_CONSTRAINT));
+    }
+
+    @Test
+    void testGenderIsStoredAsCodeAndCounted() {
+        studentrepository.saveAndFlush(new Student(null, "Asha", "asha@gmail.com", "female"));
+        Student bala = studentrepository.saveAndFlush(new Student(null, "Bala", "bala@gmail.com", "Male"));
+        studentrepository.saveAndFlush(new Student(null, "Chandra", "chandra@gmail.com", "M"));
+        entityManager.clear();
+
+        Slice<Student> firstMale = studentrepository.findByGender(Gender.MALE, PageRequest.of(0, 1, Sort.by("studentId")));
+
+        assertThat(firstMale.getContent()).extracting(Student::getStudentName).containsExactly("Bala");
+        assertThat(firstMale.hasNext()).isTrue();
+        assertThat(studentrepository.findGenderById(bala.getStudentId())).contains(Gender.MALE);
+        assertThat(studentrepository.countByGender())
+                .extracting(StudentRepository.GenderCount::getGender, StudentRepository.GenderCount::getStudents)
+                .containsExactlyInAnyOrder(tuple(Gender.MALE, 2L), tuple(Gender.FEMALE, 1L));
+    }
 }
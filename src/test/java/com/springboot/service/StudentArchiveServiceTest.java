@@ -0,0 +1,136 @@
+package com.springboot.service;
+
+import com.springboot.config.CacheConfig;
+import com.springboot.exception.ArchiveJobNotFoundException;
+import com.springboot.index.GenderCounts;
+import com.springboot.repository.StudentRepository;
+import com.springboot.repository.TableChangeCounterRepository;
+import com.springboot.respone.ArchiveJobStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudentArchiveServiceTest {
+
+    @Mock
+    private StudentRepository studentrepository;
+
+    @Mock
+    private GenderCounts genderCounts;
+
+    @Mock
+    private TableChangeCounterRepository changeCounters;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache studentsCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StudentArchiveService studentArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        studentArchiveService = new StudentArchiveService(studentrepository, genderCounts, changeCounters, cacheManager,
+                transactionManager, 2);
+    }
+
+    @Test
+    void runArchivesAndDeletesChunkByChunk() {
+        when(studentrepository.findIdsAfter(0L, Limit.of(2))).thenReturn(List.of(1L, 51L));
+        when(studentrepository.findIdsAfter(51L, Limit.of(2))).thenReturn(List.of(101L));
+        when(studentrepository.findIdsAfter(101L, Limit.of(2))).thenReturn(List.of());
+        when(studentrepository.archiveIdRange(eq(0L), eq(51L), any(Instant.class))).thenReturn(2);
+        when(studentrepository.deleteArchivedIdRange(0L, 51L)).thenReturn(2);
+        when(studentrepository.archiveIdRange(eq(51L), eq(101L), any(Instant.class))).thenReturn(1);
+        when(studentrepository.deleteArchivedIdRange(51L, 101L)).thenReturn(1);
+        when(cacheManager.getCache(CacheConfig.STUDENTS)).thenReturn(studentsCache);
+        ArchiveJobStatus job = new ArchiveJobStatus("job-1", Instant.now());
+
+        studentArchiveService.run(job);
+
+        assertEquals(ArchiveJobStatus.State.COMPLETED, job.getState());
+        assertEquals(3, job.getArchived());
+        assertEquals(3, job.getDeleted());
+        assertEquals(2, job.getChunks());
+        assertNotNull(job.getFinishedAt());
+        verify(transactionManager, times(2)).commit(any());
+        verify(genderCounts).rebuild();
+        InOrder afterCommit = inOrder(transactionManager, studentsCache);
+        afterCommit.verify(transactionManager).commit(any());
+        afterCommit.verify(studentsCache).clear();
+        afterCommit.verify(transactionManager).commit(any());
+        afterCommit.verify(studentsCache).clear();
+    }
+
+    @Test
+    void runRecordsFailureAndKeepsFinishedChunks() {
+        when(studentrepository.findIdsAfter(0L, Limit.of(2))).thenReturn(List.of(1L, 2L));
+        when(studentrepository.findIdsAfter(2L, Limit.of(2))).thenReturn(List.of(3L));
+        when(studentrepository.archiveIdRange(eq(0L), eq(2L), any(Instant.class))).thenReturn(2);
+        when(studentrepository.deleteArchivedIdRange(0L, 2L)).thenReturn(2);
+        when(studentrepository.archiveIdRange(eq(2L), eq(3L), any(Instant.class)))
+                .thenThrow(new IllegalStateException("lock wait timeout"));
+        ArchiveJobStatus job = new ArchiveJobStatus("job-2", Instant.now());
+
+        studentArchiveService.run(job);
+
+        assertEquals(ArchiveJobStatus.State.FAILED, job.getState());
+        assertEquals("lock wait timeout", job.getError());
+        assertEquals(2, job.getArchived());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void runMarksJobFailedWhenAnErrorIsThrown() {
+        when(studentrepository.findIdsAfter(0L, Limit.of(2))).thenThrow(new OutOfMemoryError("Java heap space"));
+        ArchiveJobStatus job = new ArchiveJobStatus("job-3", Instant.now());
+
+        assertThrows(OutOfMemoryError.class, () -> studentArchiveService.run(job));
+
+        assertEquals(ArchiveJobStatus.State.FAILED, job.getState());
+        assertEquals("java.lang.OutOfMemoryError: Java heap space", job.getError());
+        verify(genderCounts).rebuild();
+    }
+
+    @Test
+    void newJobCanStartAfterOneDiesOfAnError() throws Exception {
+        when(studentrepository.findIdsAfter(0L, Limit.of(2)))
+                .thenThrow(new OutOfMemoryError("Java heap space"))
+                .thenReturn(List.of());
+
+        ArchiveJobStatus first = studentArchiveService.startArchiveAndPurge();
+        ArchiveJobStatus second = first;
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (second == first && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            second = studentArchiveService.startArchiveAndPurge();
+        }
+
+        assertEquals(ArchiveJobStatus.State.FAILED, first.getState());
+        assertNotEquals(first.getJobId(), second.getJobId());
+    }
+
+    @Test
+    void getJobThrowsForUnknownId() {
+        assertThrows(ArchiveJobNotFoundException.class, () -> studentArchiveService.getJob("missing"));
+    }
+}
@@ -2,16 +2,35 @@ package com.springboot.service;
 
 import com.springboot.exception.DuplicateFoundException;
 import com.springboot.exception.NoDataAvailableException;
+import com.springboot.exception.PreconditionFailedException;
 import com.springboot.exception.StudentNotFoundException;
+import com.springboot.index.GenderCounts;
+import com.springboot.index.StudentNameIndex;
+import com.springboot.model.Gender;
 import com.springboot.model.Student;
+import com.springboot.model.TableChangeCounter;
 import com.springboot.repository.StudentRepository;
+import com.springboot.repository.TableChangeCounterRepository;
+import com.springboot.respone.BulkCreateResult;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,6 +41,21 @@ public class StudentServiceTest {
     @Mock
     private StudentRepository studentrepository;
 
+    @Mock
+    private StudentNameIndex studentNameIndex;
+
+    @Mock
+    private GenderCounts genderCounts;
+
+    @Mock
+    private TableChangeCounterRepository changeCounters;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Validator validator;
+
     @InjectMocks
     private StudentService studentService;
 
@@ -74,6 +108,62 @@ public class StudentServiceTest {
         verify(studentrepository, never()).save(any());
     }
 
+    @Test
+    void createStudentsSkipsDuplicatesAndInvalidEntries() {
+        StudentService bulkService = new StudentService(studentrepository, studentNameIndex, genderCounts, changeCounters, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        Student existing = new Student(null, "Raj", "raj@gmail.com", "Male");
+        Student fresh = new Student(null, "Amit", "amit@gmail.com", "Male");
+        Student repeated = new Student(null, "Amit K", "AMIT@gmail.com", "Male");
+        Student invalid = new Student(null, "", "not-an-email", "Male");
+
+        when(studentrepository.findExistingEmails(anyCollection())).thenReturn(List.of("raj@gmail.com"));
+        when(studentrepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Student> saved = i.getArgument(0);
+            saved.forEach(s -> s.setStudentId(10L));
+            return saved;
+        });
+
+        BulkCreateResult result = bulkService.createStudents(List.of(existing, fresh, repeated, invalid).iterator());
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(1, result.getInvalid());
+        assertEquals(List.of(BulkCreateResult.Status.DUPLICATE, BulkCreateResult.Status.CREATED,
+                        BulkCreateResult.Status.DUPLICATE, BulkCreateResult.Status.INVALID),
+                result.getItems().stream().sorted(Comparator.comparingInt(BulkCreateResult.Item::getIndex))
+                        .map(BulkCreateResult.Item::getStatus).toList());
+        verify(studentrepository, times(1)).saveAll(List.of(fresh));
+        verify(genderCounts, times(1)).add(Gender.MALE, 1);
+        verify(studentrepository, never()).existsByStudentEmail(any());
+    }
+
+    @Test
+    void createStudentsRetriesChunkOneByOneWhenAnEmailIsTakenConcurrently() {
+        StudentService bulkService = new StudentService(studentrepository, studentNameIndex, genderCounts, changeCounters, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        Student fresh = new Student(null, "Amit", "amit@gmail.com", "Male");
+        Student raced = new Student(null, "Raj", "raj@gmail.com", "Male");
+
+        when(studentrepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(studentrepository.saveAll(anyList())).thenThrow(emailConstraintViolation());
+        when(studentrepository.save(fresh)).thenAnswer(i -> {
+            fresh.setStudentId(10L);
+            return fresh;
+        });
+        when(studentrepository.save(raced)).thenThrow(emailConstraintViolation());
+
+        BulkCreateResult result = bulkService.createStudents(List.of(fresh, raced).iterator());
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(List.of(BulkCreateResult.Status.CREATED, BulkCreateResult.Status.DUPLICATE),
+                result.getItems().stream().sorted(Comparator.comparingInt(BulkCreateResult.Item::getIndex))
+                        .map(BulkCreateResult.Item::getStatus).toList());
+        verify(genderCounts, times(1)).add(Gender.MALE, 1);
+        verify(changeCounters, times(1)).increment(TableChangeCounter.STUDENTS);
+    }
+
     @Test
     void getStudentByIdSuccessfully() {
         when(studentrepository.findById(1L)).thenReturn(Optional.of(sampleStudent));
@@ -109,38 +199,119 @@ public class StudentServiceTest {
         assertThrows(NoDataAvailableException.class, () -> studentService.getAllStudents());
     }
 
+    @Test
+    void getAllStudentsPageSuccessfully() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(studentrepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(sampleStudent), pageable, 1));
+
+        Page<Student> students = studentService.getAllStudents(pageable);
+
+        assertEquals(1, students.getTotalElements());
+        verify(studentrepository, never()).findAll();
+    }
+
+    @Test
+    void getAllStudentsPageThrowsNoDataException() {
+        PageRequest pageable = PageRequest.of(3, 10);
+        when(studentrepository.findAll(pageable)).thenReturn(Page.empty(pageable));
+
+        assertThrows(NoDataAvailableException.class, () -> studentService.getAllStudents(pageable));
+    }
+
+    @Test
+    void streamAllStudentsDetachesEachStudent() {
+        when(studentrepository.streamAll()).thenReturn(Stream.of(sampleStudent));
+        List<Student> received = new ArrayList<>();
+
+        long count = studentService.streamAllStudents(received::add);
+
+        assertEquals(1, count);
+        assertEquals(List.of(sampleStudent), received);
+        verify(entityManager).detach(sampleStudent);
+    }
+
     @Test
     void updateStudentSuccessfully() {
         Student updatedStudent = new Student();
         updatedStudent.setStudentName("Updated");
         updatedStudent.setStudentGender("Other");
-        updatedStudent.setStudentEmail("updated@gmail.com");
+        updatedStudent.setStudentEmail("updated@Gmail.com");
 
-        when(studentrepository.findById(1L)).thenReturn(Optional.of(sampleStudent));
-        when(studentrepository.save(any(Student.class))).thenReturn(updatedStudent);
+        when(studentrepository.updateDetails(1L, "Updated", "updated@Gmail.com", "Other", "gmail.com", "updated",
+                Gender.OTHER, Gender.OTHER, null)).thenReturn(1);
 
         Student result = studentService.updateStudent(1L, updatedStudent);
 
+        assertEquals(1L, result.getStudentId());
         assertEquals("Updated", result.getStudentName());
         assertEquals("Other", result.getStudentGender());
+        verify(studentrepository, never()).findById(any());
+        verify(studentrepository, never()).findGenderById(any());
+        verify(studentrepository, never()).save(any());
+        verify(genderCounts).move(Gender.OTHER, Gender.OTHER);
+        verify(changeCounters).increment(TableChangeCounter.STUDENTS);
+    }
+
+    @Test
+    void updateStudentWithStaleVersionFailsPrecondition() {
+        when(studentrepository.updateDetails(1L, "Rajkumar Prasad", "raj@gmail.com", "Male", "gmail.com",
+                "rajkumar prasad", Gender.MALE, Gender.MALE, 4L)).thenReturn(0);
+        when(studentrepository.findGenderById(1L)).thenReturn(Optional.of(Gender.MALE));
+        when(studentrepository.existsByStudentIdAndVersion(1L, 4L)).thenReturn(false);
+
+        assertThrows(PreconditionFailedException.class, () -> studentService.updateStudent(1L, sampleStudent, 4L));
+        verify(genderCounts, never()).move(any(), any());
+        verify(changeCounters, never()).increment(any());
+    }
+
+    @Test
+    void updateStudentWithCurrentVersionReturnsTheNextOne() {
+        when(studentrepository.updateDetails(1L, "Rajkumar Prasad", "raj@gmail.com", "Male", "gmail.com",
+                "rajkumar prasad", Gender.MALE, Gender.MALE, 4L)).thenReturn(1);
+
+        assertEquals(5L, studentService.updateStudent(1L, sampleStudent, 4L).getVersion());
+    }
+
+    @Test
+    void updateStudentMovesGenderCountWhenGenderChanges() {
+        when(studentrepository.updateDetails(1L, "Rajkumar Prasad", "raj@gmail.com", "Male", "gmail.com",
+                "rajkumar prasad", Gender.MALE, Gender.MALE, null)).thenReturn(0);
+        when(studentrepository.findGenderById(1L)).thenReturn(Optional.of(Gender.FEMALE));
+        when(studentrepository.updateDetails(1L, "Rajkumar Prasad", "raj@gmail.com", "Male", "gmail.com",
+                "rajkumar prasad", Gender.MALE, Gender.FEMALE, null)).thenReturn(1);
+
+        studentService.updateStudent(1L, sampleStudent);
+
+        verify(genderCounts).move(Gender.FEMALE, Gender.MALE);
     }
 
     @Test
     void updateStudentThrowsNotFound() {
-        when(studentrepository.findById(1L)).thenReturn(Optional.empty());
+        when(studentrepository.updateDetails(eq(1L), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(studentrepository.findGenderById(1L)).thenReturn(Optional.empty());
 
         assertThrows(StudentNotFoundException.class, () -> studentService.updateStudent(1L, sampleStudent));
+        verify(genderCounts, never()).move(any(), any());
+    }
+
+    @Test
+    void updateStudentThrowsDuplicateOnEmailConstraint() {
+        when(studentrepository.updateDetails(eq(1L), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(emailConstraintViolation());
+
+        assertThrows(DuplicateFoundException.class, () -> studentService.updateStudent(1L, sampleStudent));
     }
 
     @Test
     void deleteStudentByIdSuccessfully() {
         when(studentrepository.findById(1L)).thenReturn(Optional.of(sampleStudent));
-        doNothing().when(studentrepository).deleteById(1L);
+        when(studentrepository.deleteStudent(1L)).thenReturn(1);
 
         Student deleted = studentService.deleteStudentById(1L);
 
         assertEquals(sampleStudent.getStudentId(), deleted.getStudentId());
-        verify(studentrepository).deleteById(1L);
+        verify(studentrepository).deleteStudent(1L);
+        verify(genderCounts).add(Gender.MALE, -1);
     }
 
     @Test
@@ -152,17 +323,22 @@ public class StudentServiceTest {
 
     @Test
     void deleteAllStudentsSuccessfully() {
-        when(studentrepository.count()).thenReturn(5L);
-        doNothing().when(studentrepository).deleteAll();
+        when(studentrepository.findIdsAfter(eq(0L), any(Limit.class))).thenReturn(List.of(1L, 2L));
+        when(studentrepository.findIdsAfter(eq(2L), any(Limit.class))).thenReturn(List.of(5L));
+        when(studentrepository.findIdsAfter(eq(5L), any(Limit.class))).thenReturn(List.of());
+        when(studentrepository.deleteIdRange(0L, 2L)).thenReturn(2);
+        when(studentrepository.deleteIdRange(2L, 5L)).thenReturn(1);
 
-        studentService.deleteAllStudents();
+        assertEquals(3L, studentService.deleteAllStudents());
 
-        verify(studentrepository).deleteAll();
+        verify(genderCounts).rebuild();
+        verify(studentrepository, never()).findAll();
+        verify(studentrepository, never()).deleteAll();
     }
 
     @Test
     void deleteAllStudentsThrowsNotFound() {
-        when(studentrepository.count()).thenReturn(0L);
+        when(studentrepository.findIdsAfter(eq(0L), any(Limit.class))).thenReturn(List.of());
 
         assertThrows(StudentNotFoundException.class, () -> studentService.deleteAllStudents());
     }
@@ -171,24 +347,28 @@ public class StudentServiceTest {
 
     @Test
     void getStudentsByGenderSuccessfully() {
-        when(studentrepository.findByStudentGenderIgnoreCase("Male")).thenReturn(List.of(sampleStudent));
+        PageRequest pageable = PageRequest.of(0, 20);
+        when(studentrepository.findByGender(Gender.MALE, pageable)).thenReturn(new SliceImpl<>(List.of(sampleStudent)));
+        when(genderCounts.count(Gender.MALE)).thenReturn(1L);
 
-        List<Student> students = studentService.getStudentsByGender("Male");
+        Page<Student> students = studentService.getStudentsByGender(" male ", pageable);
 
-        assertFalse(students.isEmpty());
-        assertEquals("Male", students.get(0).getStudentGender());
+        assertEquals("Male", students.getContent().get(0).getStudentGender());
+        assertEquals(1L, students.getTotalElements());
+        verify(studentrepository, never()).count();
     }
 
     @Test
     void getStudentsByGenderThrowsException() {
-        when(studentrepository.findByStudentGenderIgnoreCase("Male")).thenReturn(Collections.emptyList());
+        PageRequest pageable = PageRequest.of(0, 20);
+        when(studentrepository.findByGender(Gender.MALE, pageable)).thenReturn(new SliceImpl<>(List.of()));
 
-        assertThrows(NoDataAvailableException.class, () -> studentService.getStudentsByGender("Male"));
+        assertThrows(NoDataAvailableException.class, () -> studentService.getStudentsByGender("Male", pageable));
     }
 
     @Test
     void getStudentsByEmailDomainSuccessfully() {
-        when(studentrepository.findAll()).thenReturn(List.of(sampleStudent));
+        when(studentrepository.findByEmailDomain("gmail.com")).thenReturn(List.of(sampleStudent));
 
         List<Student> students = studentService.getStudentsByEmailDomain("gmail.com");
 
@@ -196,79 +376,141 @@ public class StudentServiceTest {
         assertTrue(students.get(0).getStudentEmail().endsWith("@gmail.com"));
     }
 
+    @Test
+    void getStudentsByEmailDomainNormalizesDomain() {
+        when(studentrepository.findByEmailDomain("gmail.com")).thenReturn(List.of(sampleStudent));
+
+        List<Student> students = studentService.getStudentsByEmailDomain("@GMail.com");
+
+        assertEquals(1, students.size());
+    }
+
     @Test
     void getStudentsByEmailDomainThrowsNoData() {
-        when(studentrepository.findAll()).thenReturn(Collections.emptyList());
+        when(studentrepository.findByEmailDomain("gmail.com")).thenReturn(Collections.emptyList());
 
         assertThrows(NoDataAvailableException.class, () -> studentService.getStudentsByEmailDomain("gmail.com"));
     }
 
     @Test
     void getTopNStudentsSuccessfully() {
+        when(studentrepository.findByOrderByStudentNameKeyAscStudentIdAsc(Limit.of(1))).thenReturn(List.of(sampleStudent));
+
+        List<Student> topStudents = studentService.getTopNStudents(1);
+
+        assertEquals(1, topStudents.size());
+    }
+
+    @Test
+    void getTopNStudentsContinuesAfterCursor() {
         Student s2 = new Student();
         s2.setStudentId(2L);
-        s2.setStudentName("Amit");
+        s2.setStudentName("Sunil");
         s2.setStudentGender("Male");
-        s2.setStudentEmail("amit@gmail.com");
+        s2.setStudentEmail("sunil@gmail.com");
 
-        when(studentrepository.findAll()).thenReturn(new ArrayList<>(Arrays.asList(sampleStudent, s2)));
+        when(studentrepository.findByNameKeyAfter("rajkumar prasad", 1L, Limit.of(1))).thenReturn(List.of(s2));
 
-        List<Student> topStudents = studentService.getTopNStudents(1);
+        List<Student> nextPage = studentService.getTopNStudents(1, "Rajkumar Prasad", 1L);
 
-        assertEquals(1, topStudents.size());
+        assertEquals(2L, nextPage.get(0).getStudentId());
+        verify(studentrepository, never()).findAll();
+    }
+
+    @Test
+    void getTopNStudentsIsCappedAtTheMaximumSize() {
+        when(studentrepository.findByOrderByStudentNameKeyAscStudentIdAsc(Limit.of(500))).thenReturn(List.of(sampleStudent));
+
+        studentService.getTopNStudents(Integer.MAX_VALUE);
+
+        verify(studentrepository).findByOrderByStudentNameKeyAscStudentIdAsc(Limit.of(500));
     }
 
     @Test
     void getTopNStudentsThrowsIfEmpty() {
-        when(studentrepository.findAll()).thenReturn(Collections.emptyList());
+        when(studentrepository.findByOrderByStudentNameKeyAscStudentIdAsc(Limit.of(2))).thenReturn(Collections.emptyList());
 
         assertThrows(NoDataAvailableException.class, () -> studentService.getTopNStudents(2));
     }
 
     @Test
     void isStudentExistsWithNameReturnsTrue() {
-        when(studentrepository.findAll()).thenReturn(List.of(sampleStudent));
+        when(studentNameIndex.mightContain("rajkumar prasad")).thenReturn(true);
+        when(studentrepository.existsByStudentNameKey("rajkumar prasad")).thenReturn(true);
 
         assertTrue(studentService.isStudentExistsWithName("Rajkumar Prasad"));
     }
 
     @Test
     void isStudentExistsWithNameReturnsFalse() {
-        when(studentrepository.findAll()).thenReturn(List.of());
+        when(studentNameIndex.mightContain("unknown")).thenReturn(true);
+        when(studentrepository.existsByStudentNameKey("unknown")).thenReturn(false);
 
         assertFalse(studentService.isStudentExistsWithName("Unknown"));
     }
 
     @Test
-    void archiveAndDeleteAllSuccessfully() {
-        when(studentrepository.findAll()).thenReturn(List.of(sampleStudent));
-        when(studentrepository.count()).thenReturn(1L);
-        doNothing().when(studentrepository).deleteAll();
-
-        studentService.archiveAndDeleteAll();
+    void isStudentExistsWithNameSkipsDatabaseWhenFilterRulesOut() {
+        when(studentNameIndex.mightContain("unknown")).thenReturn(false);
 
-        verify(studentrepository).deleteAll();
+        assertFalse(studentService.isStudentExistsWithName("Unknown"));
+        verify(studentrepository, never()).existsByStudentNameKey(any());
     }
 
     @Test
     void safeUpdateStudentEmailSuccessfully() {
-        when(studentrepository.existsByStudentEmail("newraj@gmail.com")).thenReturn(false);
-        when(studentrepository.findById(1L)).thenReturn(Optional.of(sampleStudent));
-        when(studentrepository.save(any(Student.class))).thenAnswer(i -> i.getArgument(0));
+        Student updatedStudent = new Student(1L, sampleStudent.getStudentName(), "newraj@gmail.com",
+                sampleStudent.getStudentGender());
+        when(studentrepository.updateEmail(1L, "newraj@gmail.com", "gmail.com", null)).thenReturn(1);
+        when(studentrepository.findById(1L)).thenReturn(Optional.of(updatedStudent));
 
         Student updated = studentService.safeUpdateStudentEmail(1L, "newraj@gmail.com");
 
         assertEquals("newraj@gmail.com", updated.getStudentEmail());
+        verify(studentrepository, never()).existsByStudentEmail(any());
+        verify(studentrepository, never()).save(any());
     }
 
     @Test
     void safeUpdateStudentEmailThrowsDuplicate() {
-        when(studentrepository.existsByStudentEmail("newraj@gmail.com")).thenReturn(true);
+        when(studentrepository.updateEmail(1L, "newraj@gmail.com", "gmail.com", null)).thenThrow(emailConstraintViolation());
 
         assertThrows(DuplicateFoundException.class,
                 () -> studentService.safeUpdateStudentEmail(1L, "newraj@gmail.com"));
     }
 
+    @Test
+    void safeUpdateStudentEmailThrowsNotFound() {
+        when(studentrepository.updateEmail(1L, "newraj@gmail.com", "gmail.com", null)).thenReturn(0);
+
+        assertThrows(StudentNotFoundException.class,
+                () -> studentService.safeUpdateStudentEmail(1L, "newraj@gmail.com"));
+    }
+
+    @Test
+    void safeUpdateStudentEmailWithStaleVersionFailsPrecondition() {
+        when(studentrepository.updateEmail(1L, "newraj@gmail.com", "gmail.com", 4L)).thenReturn(0);
+        when(studentrepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class,
+                () -> studentService.safeUpdateStudentEmail(1L, "newraj@gmail.com", 4L));
+    }
+
+    @Test
+    void otherIntegrityViolationsAreNotReportedAsDuplicates() {
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", new SQLException(), null));
+        when(studentrepository.updateEmail(1L, "newraj@gmail.com", "gmail.com", null)).thenThrow(notNull);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> studentService.safeUpdateStudentEmail(1L, "newraj@gmail.com"));
+    }
+
+    private static DataIntegrityViolationException emailConstraintViolation() {
+        return new DataIntegrityViolationException("duplicate", new ConstraintViolationException("duplicate",
+                new SQLException(), "PUBLIC." + Student.EMAIL_UNIQUE_CONSTRAINT.toUpperCase(Locale.ROOT) + "_INDEX_3"));
+    }
+
     @Test
     void dummyTest() {
         System.out.println("Dummy test");